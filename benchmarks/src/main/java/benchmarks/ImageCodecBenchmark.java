@@ -0,0 +1,108 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import controller.enums.PPMFormat;
+import controller.utils.GenericImageUtil;
+import controller.utils.ImageUtil;
+import controller.utils.PPMImageUtil;
+import model.image.Image;
+import model.image.RowBands;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading and saving images in the plain and raw PPM formats through
+ * {@link PPMImageUtil} and in the PNG and JPEG formats through {@link GenericImageUtil}. The files
+ * are written to a temporary directory, which is removed at the end of the trial. Raw files of
+ * 8K images are above the default mapping threshold, so loading them measures the mapping rather
+ * than the reading of the samples. Run with {@code -prof gc} to see the allocation rate of each
+ * format next to its time, adding {@code -p parallelism=1} to include the allocations made on the
+ * pool that encodes plain files.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xmx4g"})
+public class ImageCodecBenchmark {
+
+  @Param({"256x256", "1920x1080", "3840x2160", "7680x4320"})
+  public String resolution;
+
+  // 0 keeps the configured pool, any other value processes the row bands on a pool of that size
+  @Param({"0"})
+  public int parallelism;
+
+  private ForkJoinPool previousPool;
+
+  @Param({"ppm", "raw-ppm", "png", "jpg"})
+  public String format;
+
+  private Image image;
+  private ImageUtil imageUtil;
+  private Path directory;
+  private String loadPath;
+  private String savePath;
+
+  @Setup(Level.Trial)
+  public void writeImage() throws IOException {
+    previousPool = RowBands.getPool();
+    if (parallelism > 0) {
+      RowBands.setPool(new ForkJoinPool(parallelism));
+    }
+    image = SyntheticImages.create(resolution);
+    String extension;
+    if ("ppm".equals(format)) {
+      imageUtil = new PPMImageUtil();
+      extension = "ppm";
+    } else if ("raw-ppm".equals(format)) {
+      imageUtil = new PPMImageUtil(PPMFormat.RAW_RGB);
+      extension = "ppm";
+    } else {
+      imageUtil = new GenericImageUtil();
+      extension = format;
+    }
+    directory = Files.createTempDirectory("imagemanipulator-benchmarks");
+    loadPath = directory.resolve("load." + extension).toString();
+    savePath = directory.resolve("save." + extension).toString();
+    imageUtil.saveImageToFile(image, loadPath);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteFiles() throws IOException {
+    RowBands.setPool(previousPool);
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public Image load() throws IOException {
+    return imageUtil.getImageFromFile(loadPath);
+  }
+
+  @Benchmark
+  public void save() throws IOException {
+    imageUtil.saveImageToFile(image, savePath);
+  }
+}
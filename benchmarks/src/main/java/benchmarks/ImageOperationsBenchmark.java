@@ -0,0 +1,170 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import controller.enums.ColorTransform;
+import controller.enums.Filter;
+import controller.utils.CommonImageUtil;
+import model.enums.ColorChannel;
+import model.image.Image;
+import model.image.ImageVersion3;
+import model.image.RowBands;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.Component;
+import utils.FlipDirection;
+
+/**
+ * Measures every operation of the images, from 256x256 up to 8K, through the public image methods
+ * so that the band splitting and the allocation of the results are included. The operations are
+ * called on the images directly, which bypasses the result cache of the manipulators. Run with
+ * {@code -prof gc} to see the allocation rate of each operation next to its time; the profiler
+ * only counts the allocations of the benchmark thread, so add {@code -p parallelism=1} for the
+ * allocations of the row bands to be included.
+ *
+ * <p>Brightening 8 bit images, greyscale by channel and split return views of their source whose
+ * samples are computed as they are read, so those benchmarks read every sample of their results.
+ * Their times are therefore those of the operation followed by one full read of the result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xmx4g"})
+public class ImageOperationsBenchmark {
+
+  private static final double[][] BLUR = Filter.BLUR.getKernel();
+
+  private static final double[][] SHARPEN = Filter.SHARPEN.getKernel();
+
+  private static final double[][] SEPIA = ColorTransform.SEPIA.getTransform();
+
+  private static final int MOSAIC_SEEDS = 1000;
+
+  @Param({"256x256", "1920x1080", "3840x2160", "7680x4320"})
+  public String resolution;
+
+  // 0 keeps the configured pool, any other value processes the row bands on a pool of that size
+  @Param({"0"})
+  public int parallelism;
+
+  private ForkJoinPool previousPool;
+
+  private ImageVersion3 image;
+  private List<Image> channels;
+  private int[] plane;
+
+  @Setup(Level.Trial)
+  public void createImage() {
+    previousPool = RowBands.getPool();
+    if (parallelism > 0) {
+      RowBands.setPool(new ForkJoinPool(parallelism));
+    }
+    image = SyntheticImages.create(resolution);
+    channels = image.split();
+    plane = new int[image.getHeight() * image.getWidth()];
+  }
+
+  @TearDown(Level.Trial)
+  public void restorePool() {
+    RowBands.setPool(previousPool);
+  }
+
+  // Reads every sample of the given image, so that views are charged for the samples they compute.
+  private void readSamples(Image result, Blackhole blackhole) {
+    for (int channel = 0; channel < result.getNumberOfChannels(); channel++) {
+      result.getChannelValues(channel, plane, 0);
+      blackhole.consume(plane);
+    }
+  }
+
+  @Benchmark
+  public void brighten(Blackhole blackhole) {
+    readSamples(image.brighten(40), blackhole);
+  }
+
+  @Benchmark
+  public Image horizontalFlip() {
+    return image.flip(FlipDirection.HORIZONTAL);
+  }
+
+  @Benchmark
+  public Image verticalFlip() {
+    return image.flip(FlipDirection.VERTICAL);
+  }
+
+  @Benchmark
+  public void redComponent(Blackhole blackhole) {
+    readSamples(image.greyScale(Component.RED), blackhole);
+  }
+
+  @Benchmark
+  public Image valueComponent() {
+    return image.greyScale(Component.VALUE);
+  }
+
+  @Benchmark
+  public Image lumaComponent() {
+    return image.greyScale(Component.LUMA);
+  }
+
+  @Benchmark
+  public void split(Blackhole blackhole) {
+    for (Image channel : image.split()) {
+      readSamples(channel, blackhole);
+    }
+  }
+
+  // combine inserts the image it is called on into the list it is given, so each call gets a copy
+  @Benchmark
+  public Image combine() {
+    return channels.get(0).combine(new ArrayList<>(channels.subList(1, channels.size())));
+  }
+
+  @Benchmark
+  public Image blur() {
+    return image.filter(BLUR);
+  }
+
+  @Benchmark
+  public Image sharpen() {
+    return image.filter(SHARPEN);
+  }
+
+  @Benchmark
+  public Image sepia() {
+    return image.colorTransform(SEPIA);
+  }
+
+  @Benchmark
+  public Image dither() {
+    return image.dither(ColorChannel.RED);
+  }
+
+  @Benchmark
+  public Image mosaic() {
+    return image.mosaic(MOSAIC_SEEDS);
+  }
+
+  @Benchmark
+  public int[][] histogram() {
+    return CommonImageUtil.getImageHistogramMatrix(image);
+  }
+}
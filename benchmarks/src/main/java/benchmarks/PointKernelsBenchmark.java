@@ -0,0 +1,142 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import controller.enums.ColorTransform;
+import model.image.ColorMatrix;
+import model.image.PointKernels;
+import model.image.ScalarPointKernels;
+import model.image.VectorPointKernels;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the scalar and the Vector API point operation kernels on whole 4K and 8K channels,
+ * including the double and the fixed-point versions of the color transforms. The
+ * kernels are called directly on the planes, without the band splitting done by the images, so
+ * that the numbers reflect the inner loops only. The kernels that overwrite their input work on
+ * copies of the channels that are restored before every call, which is left out of the timings of
+ * the other kernels.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class PointKernelsBenchmark {
+
+  private static final double[][] SEPIA = ColorTransform.SEPIA.getTransform();
+
+  @Param({"3840x2160", "7680x4320"})
+  public String resolution;
+
+  @Param({"scalar", "vector"})
+  public String kernels;
+
+  private static final ColorMatrix SEPIA_MATRIX = new ColorMatrix(SEPIA);
+
+  private static final ColorMatrix LUMA_MATRIX =
+          new ColorMatrix(new double[][]{{0.2126, 0.7152, 0.0722}});
+
+  private PointKernels pointKernels;
+  private int length;
+  private int[][] source;
+  private int[] result;
+
+  /**
+   * Copies of the channels for the kernels that overwrite their input, restored before every call
+   * so that each one starts from the same samples.
+   */
+  @State(Scope.Thread)
+  public static class InPlaceChannels {
+    private int[] red;
+    private int[] green;
+    private int[] blue;
+
+    @Setup(Level.Invocation)
+    public void resetChannels(PointKernelsBenchmark benchmark) {
+      int length = benchmark.length;
+      if (red == null || red.length != length) {
+        red = new int[length];
+        green = new int[length];
+        blue = new int[length];
+      }
+      System.arraycopy(benchmark.source[0], 0, red, 0, length);
+      System.arraycopy(benchmark.source[1], 0, green, 0, length);
+      System.arraycopy(benchmark.source[2], 0, blue, 0, length);
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void createChannels() {
+    pointKernels = "vector".equals(kernels) ? new VectorPointKernels()
+            : new ScalarPointKernels();
+    String[] dimensions = resolution.split("x");
+    length = Integer.parseInt(dimensions[0]) * Integer.parseInt(dimensions[1]);
+    Random random = new Random(42);
+    source = new int[3][length];
+    for (int[] channel : source) {
+      for (int i = 0; i < length; i++) {
+        channel[i] = random.nextInt(256);
+      }
+    }
+    result = new int[length];
+  }
+
+  @Benchmark
+  public int[] brighten(InPlaceChannels channels) {
+    pointKernels.brighten(channels.red, 0, length, 40, 0, 255);
+    return channels.red;
+  }
+
+  @Benchmark
+  public void colorTransform(InPlaceChannels channels, Blackhole blackhole) {
+    pointKernels.colorTransform(channels.red, channels.green, channels.blue, length, SEPIA, 0,
+            255);
+    blackhole.consume(channels.red);
+    blackhole.consume(channels.green);
+    blackhole.consume(channels.blue);
+  }
+
+  @Benchmark
+  public void fixedPointColorTransform(Blackhole blackhole) {
+    for (int row = 0; row < 3; row++) {
+      pointKernels.weightedSum(source[0], source[1], source[2], SEPIA_MATRIX, row, result,
+              length, 0, 255);
+      blackhole.consume(result);
+    }
+  }
+
+  @Benchmark
+  public int[] fixedPointLuma() {
+    pointKernels.weightedSum(source[0], source[1], source[2], LUMA_MATRIX, 0, result, length, 0,
+            255);
+    return result;
+  }
+
+  @Benchmark
+  public int[] luma() {
+    pointKernels.luma(source[0], source[1], source[2], result, length);
+    return result;
+  }
+
+  @Benchmark
+  public int[] intensity() {
+    pointKernels.intensity(source, result, length);
+    return result;
+  }
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.util.Random;
+
+import model.image.BytePixelStorage;
+import model.image.ImageVersion3;
+import model.image.ImageVersion3Impl;
+import model.image.PixelStorage;
+
+/**
+ * Creates the images the benchmarks run on. The samples are smooth gradients with some noise on
+ * top, so that they compress about as well as photographs do and the encoders are not measured on
+ * unrealistically random or flat data. The same resolution always gives the same image.
+ */
+final class SyntheticImages {
+
+  private static final int NOISE = 24;
+
+  private SyntheticImages() {
+  }
+
+  /**
+   * Creates an 8-bit RGB image of the given resolution.
+   *
+   * @param resolution the resolution of the image, as width x height, e.g. "3840x2160"
+   * @return the image
+   */
+  static ImageVersion3 create(String resolution) {
+    String[] dimensions = resolution.split("x");
+    int width = Integer.parseInt(dimensions[0]);
+    int height = Integer.parseInt(dimensions[1]);
+    PixelStorage storage = new BytePixelStorage(height, width, 3);
+    Random random = new Random(42);
+    int[] samples = new int[width];
+    for (int channel = 0; channel < 3; channel++) {
+      for (int row = 0; row < height; row++) {
+        for (int col = 0; col < width; col++) {
+          int gradient;
+          if (channel == 0) {
+            gradient = 255 * col / width;
+          } else if (channel == 1) {
+            gradient = 255 * row / height;
+          } else {
+            gradient = 255 * (row + col) / (height + width);
+          }
+          int value = gradient + random.nextInt(NOISE) - NOISE / 2;
+          samples[col] = Math.max(0, Math.min(255, value));
+        }
+        storage.setSamples(channel, (long) row * width, samples, 0, width);
+      }
+    }
+    return (ImageVersion3) new ImageVersion3Impl.ImageVersion3ImplBuilder()
+            .setHeight(height)
+            .setWidth(width)
+            .setPixelStorage(storage)
+            .build();
+  }
+}
@@ -0,0 +1,149 @@
+package model.image;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implements the point operation kernels with the Java Vector API, processing as many samples per
+ * instruction as the preferred vector shape of the CPU holds. The arithmetic is performed in the
+ * same order as in {@link ScalarPointKernels}, so the results are identical to the scalar ones.
+ *
+ * <p>This class lives in its own source root because it needs JDK 16 or newer and the
+ * {@code jdk.incubator.vector} module at compile time. It is picked up by
+ * {@link PointKernels#getFastestAvailable()} when it is on the class path and the JVM has been
+ * started with {@code --add-modules jdk.incubator.vector}.
+ */
+public class VectorPointKernels implements PointKernels {
+
+  private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+  // int vectors with as many lanes as the preferred double vectors, used for conversions
+  private static final VectorSpecies<Integer> INTS_PER_DOUBLES = VectorSpecies.of(int.class,
+          VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+  @Override
+  public void brighten(int[] samples, int offset, int length, int amount, int minimumValue,
+                       int maximumValue) {
+    int i = offset;
+    int upperBound = offset + INTS.loopBound(length);
+    for (; i < upperBound; i += INTS.length()) {
+      IntVector.fromArray(INTS, samples, i).add(amount).min(maximumValue).max(minimumValue)
+              .intoArray(samples, i);
+    }
+    for (; i < offset + length; i++) {
+      samples[i] = Math.max(minimumValue, Math.min(samples[i] + amount, maximumValue));
+    }
+  }
+
+  @Override
+  public void colorTransform(int[] red, int[] green, int[] blue, int length,
+                             double[][] transform, int minimumValue, int maximumValue) {
+    int i = 0;
+    int upperBound = DOUBLES.loopBound(length);
+    for (; i < upperBound; i += DOUBLES.length()) {
+      DoubleVector r = toDoubles(red, i);
+      DoubleVector g = toDoubles(green, i);
+      DoubleVector b = toDoubles(blue, i);
+      DoubleVector newRed = weightedSum(r, g, b, transform[0]);
+      DoubleVector newGreen = weightedSum(r, g, b, transform[1]);
+      DoubleVector newBlue = weightedSum(r, g, b, transform[2]);
+      round(newRed.max(minimumValue).min(maximumValue)).intoArray(red, i);
+      round(newGreen.max(minimumValue).min(maximumValue)).intoArray(green, i);
+      round(newBlue.max(minimumValue).min(maximumValue)).intoArray(blue, i);
+    }
+    for (; i < length; i++) {
+      int r = red[i];
+      int g = green[i];
+      int b = blue[i];
+      red[i] = roundToRange(transform[0][0] * r + transform[0][1] * g + transform[0][2] * b,
+              minimumValue, maximumValue);
+      green[i] = roundToRange(transform[1][0] * r + transform[1][1] * g + transform[1][2] * b,
+              minimumValue, maximumValue);
+      blue[i] = roundToRange(transform[2][0] * r + transform[2][1] * g + transform[2][2] * b,
+              minimumValue, maximumValue);
+    }
+  }
+
+  @Override
+  public void weightedSum(int[] red, int[] green, int[] blue, ColorMatrix matrix, int row,
+                          int[] result, int length, int minimumValue, int maximumValue) {
+    int[] weights = matrix.getWeights(row);
+    int i = 0;
+    int upperBound = INTS.loopBound(length);
+    for (; i < upperBound; i += INTS.length()) {
+      IntVector.fromArray(INTS, red, i).mul(weights[0])
+              .add(IntVector.fromArray(INTS, green, i).mul(weights[1]))
+              .add(IntVector.fromArray(INTS, blue, i).mul(weights[2]))
+              .add(ColorMatrix.HALF).lanewise(VectorOperators.ASHR, ColorMatrix.FRACTION_BITS)
+              .min(maximumValue).max(minimumValue).intoArray(result, i);
+    }
+    for (; i < length; i++) {
+      int sum = weights[0] * red[i] + weights[1] * green[i] + weights[2] * blue[i];
+      result[i] = Math.max(minimumValue,
+              Math.min((sum + ColorMatrix.HALF) >> ColorMatrix.FRACTION_BITS, maximumValue));
+    }
+  }
+
+  @Override
+  public void luma(int[] red, int[] green, int[] blue, int[] luma, int length) {
+    int i = 0;
+    int upperBound = DOUBLES.loopBound(length);
+    for (; i < upperBound; i += DOUBLES.length()) {
+      DoubleVector sum = toDoubles(red, i).mul(0.2126).add(toDoubles(green, i).mul(0.7152))
+              .add(toDoubles(blue, i).mul(0.0722));
+      round(sum).intoArray(luma, i);
+    }
+    for (; i < length; i++) {
+      luma[i] = (int) Math.round(0.2126 * red[i] + 0.7152 * green[i] + 0.0722 * blue[i]);
+    }
+  }
+
+  @Override
+  public void intensity(int[][] channels, int[] intensity, int length) {
+    int numberOfChannels = channels.length;
+    int i = 0;
+    int upperBound = INTS.loopBound(length);
+    for (; i < upperBound; i += INTS.length()) {
+      IntVector sum = IntVector.fromArray(INTS, channels[0], i);
+      for (int channel = 1; channel < numberOfChannels; channel++) {
+        sum = sum.add(IntVector.fromArray(INTS, channels[channel], i));
+      }
+      // round(sum / n) for non-negative sums, exact in integer arithmetic
+      sum.mul(2).add(numberOfChannels).div(2 * numberOfChannels).intoArray(intensity, i);
+    }
+    for (; i < length; i++) {
+      long sum = 0;
+      for (int channel = 0; channel < numberOfChannels; channel++) {
+        sum += channels[channel][i];
+      }
+      intensity[i] = (int) Math.round((double) sum / numberOfChannels);
+    }
+  }
+
+  private static DoubleVector toDoubles(int[] samples, int offset) {
+    return (DoubleVector) IntVector.fromArray(INTS_PER_DOUBLES, samples, offset)
+            .convertShape(VectorOperators.I2D, DOUBLES, 0);
+  }
+
+  private static DoubleVector weightedSum(DoubleVector r, DoubleVector g, DoubleVector b,
+                                          double[] weights) {
+    return r.mul(weights[0]).add(g.mul(weights[1])).add(b.mul(weights[2]));
+  }
+
+  // Math.round for non-negative values: adding one half and truncating matches it everywhere
+  // except just below one half, where the addition rounds up to 1.
+  private static IntVector round(DoubleVector values) {
+    VectorMask<Double> belowHalf = values.compare(VectorOperators.LT, 0.5);
+    DoubleVector rounded = values.add(0.5).blend(0.0, belowHalf);
+    return (IntVector) rounded.convertShape(VectorOperators.D2I, INTS_PER_DOUBLES, 0);
+  }
+
+  private static int roundToRange(double value, int minimumValue, int maximumValue) {
+    return (int) Math.round(Math.min(Math.max(value, minimumValue), maximumValue));
+  }
+}
@@ -1,12 +1,21 @@
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 
 import controller.controllers.Controller;
 import controller.controllers.ControllerImplVersion2;
 import controller.controllers.NewFeaturesImpl;
+import controller.server.ImageHttpService;
+import controller.server.ScriptClient;
+import controller.server.ScriptServer;
 import model.manipulator.ImageManipulatorVersion4;
 import model.manipulator.ImageManipulatorVersion4Impl;
+import model.manipulator.ResultCache;
+import model.storage.ImageDB;
+import model.storage.ImageStorage;
+import model.storage.SpillingImageDB;
 import view.IView2;
 import view.View2;
 
@@ -24,7 +33,19 @@ public class Main {
    * @param args array of strings that represent input arguments
    */
   public static void main(String[] args) {
-    ImageManipulatorVersion4 manipulator = new ImageManipulatorVersion4Impl();
+    if (args != null && args.length > 1
+            && (args[0].equals("-server") || args[0].equals("-client")
+            || args[0].equals("-http"))) {
+      try {
+        runServerOrClient(args);
+      } catch (Exception e) {
+        System.out.println(e.getMessage());
+      }
+      return;
+    }
+    ImageManipulatorVersion4 manipulator = new ImageManipulatorVersion4Impl(createImageStorage());
+    // the graphical interface outlives this method, so the storage is closed when the JVM exits
+    Runtime.getRuntime().addShutdownHook(new Thread(manipulator::close));
     Controller controller = getControllerBasedOnArgs(args, manipulator);
     try {
       controller.run();
@@ -33,6 +54,59 @@ public class Main {
     }
   }
 
+  // Keeps all images in memory unless a budget in bytes is given by the
+  // imagemanipulator.storage.budget system property, beyond which images are spilled to disk.
+  private static ImageStorage createImageStorage() {
+    Long byteBudget = Long.getLong("imagemanipulator.storage.budget");
+    return byteBudget == null ? new ImageDB() : new SpillingImageDB(byteBudget);
+  }
+
+  // Remembers results within the budget of the imagemanipulator.cache.budget system property, or
+  // by default within an eighth of the heap unless images are spilled to disk, in which case the
+  // cache would compete with the storage for memory.
+  private static ResultCache createResultCache() {
+    if (Long.getLong("imagemanipulator.storage.budget") == null) {
+      return new ResultCache();
+    }
+    return new ResultCache(Long.getLong("imagemanipulator.cache.budget", 0));
+  }
+
+  // Serves sessions on the given port with "-server {port}", or runs a session on the server
+  // listening on the given port with "-client {port} -file {script}" and "-client {port} -text".
+  // "-http {port}" serves image processing requests over HTTP instead.
+  private static void runServerOrClient(String[] args) throws Exception {
+    int port = Integer.parseInt(args[1]);
+    if (args[0].equals("-http") && args.length == 2) {
+      ImageHttpService service = new ImageHttpService(
+              new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+              // a request applies its pipeline once, so remembering results would only cost memory
+              () -> new ImageManipulatorVersion4Impl(createImageStorage(), new ResultCache(0)),
+              Integer.getInteger("imagemanipulator.http.concurrency",
+                      Runtime.getRuntime().availableProcessors()),
+              Long.getLong("imagemanipulator.http.timeout", 30000),
+              Long.getLong("imagemanipulator.http.maxbytes", 256L << 20),
+              Long.getLong("imagemanipulator.http.maxpixels", 50_000_000L));
+      service.start();
+      System.out.println("Listening on port " + service.getPort());
+    } else if (args[0].equals("-server") && args.length == 2) {
+      // the sessions share one cache, so that its budget bounds the results they remember together
+      ResultCache cache = createResultCache();
+      try (ScriptServer server = new ScriptServer(port,
+              () -> new ImageManipulatorVersion4Impl(createImageStorage(), cache),
+              Integer.getInteger("imagemanipulator.server.sessions", 16))) {
+        System.out.println("Listening on port " + server.getPort());
+        server.serve();
+      }
+    } else if (args.length == 4 && args[2].equals("-file")) {
+      new ScriptClient(port).run(new StringReader("run " + args[3] + "\nq"), System.out);
+    } else if (args.length == 3 && args[2].equals("-text")) {
+      new ScriptClient(port).run(new InputStreamReader(System.in), System.out);
+    } else {
+      throw new IllegalArgumentException("Usage : -server {port} | -client {port} -file {script}"
+              + " | -client {port} -text | -http {port}");
+    }
+  }
+
   // This method handles the input arguments passed to main method. Based on the number and type
   // of the arguments, it passes a suitable input stream to the Controller.
   private static Controller getControllerBasedOnArgs(String[] args,
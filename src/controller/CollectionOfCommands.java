@@ -12,6 +12,7 @@ import controller.commands.ImageManipulationCommand;
 import controller.commands.Load;
 import controller.commands.Mosaic;
 import controller.commands.Save;
+import controller.commands.SaveRaw;
 import controller.commands.Sharpen;
 import controller.commands.Split;
 import controller.commands.VerticalFlip;
@@ -71,5 +72,6 @@ public class CollectionOfCommands {
     commands.put(Command.SEPIA.getName(), Sepia::new);
     commands.put(Command.DITHER.getName(), Dither::new);
     commands.put(Command.MOSAIC.getName(), Mosaic::new);
+    commands.put(Command.SAVE_RAW.getName(), SaveRaw::new);
   }
 }
@@ -1,8 +1,12 @@
 package controller.commands;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import controller.enums.Command;
+import controller.enums.PPMFormat;
 import controller.utils.GenericImageUtil;
 import controller.utils.ImageUtil;
 import controller.utils.Messages;
@@ -39,23 +43,72 @@ public abstract class AbstractImageManipulationCommand implements ImageManipulat
   protected ImageUtil getImageUtilBasedOnImageFileExtension(String filename) throws
           IllegalArgumentException {
     ImageUtil util;
-    String extension;
-    try {
-      extension = filename.split("[.]")[1];
-    } catch (ArrayIndexOutOfBoundsException e) {
-      throw new IllegalArgumentException(Messages.IMAGE_EXTENSION_MISSING);
-    }
+    String extension = getImageFileExtension(filename);
 
     if (Objects.equals(extension, "ppm")) {
       util = new PPMImageUtil();
+    } else if (Objects.equals(extension, "pgm")) {
+      util = new PPMImageUtil(PPMFormat.RAW_GREY);
     } else {
       util = new GenericImageUtil();
     }
     return util;
   }
 
+  protected ImageUtil getRawImageUtilBasedOnImageFileExtension(String filename) throws
+          IllegalArgumentException {
+    String extension = getImageFileExtension(filename);
+
+    if (Objects.equals(extension, "ppm")) {
+      return new PPMImageUtil(PPMFormat.RAW_RGB);
+    } else if (Objects.equals(extension, "pgm")) {
+      return new PPMImageUtil(PPMFormat.RAW_GREY);
+    }
+    throw new IllegalArgumentException(Messages.INVALID_IMAGE_FILE_EXTENSION);
+  }
+
+  // Returns what follows the last dot of the name of the file, so that paths through directories
+  // with dots in their names are handled as well.
+  private String getImageFileExtension(String filename) throws IllegalArgumentException {
+    String name = Paths.get(filename).getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    if (dot < 0 || dot == name.length() - 1) {
+      throw new IllegalArgumentException(Messages.IMAGE_EXTENSION_MISSING);
+    }
+    return name.substring(dot + 1);
+  }
+
+  @Override
+  public String getName() {
+    return command.getName();
+  }
+
   @Override
   public String getPreExecutionMessage() {
     return preExecutionMessage;
   }
+
+  @Override
+  public List<String> getInputImageNames() throws InvalidNumberOfArgumentsException {
+    return getArguments(command.getInputArguments());
+  }
+
+  @Override
+  public List<String> getOutputImageNames() throws InvalidNumberOfArgumentsException {
+    return getArguments(command.getOutputArguments());
+  }
+
+  @Override
+  public List<String> getFileNames() throws InvalidNumberOfArgumentsException {
+    return getArguments(command.getFileArguments());
+  }
+
+  private List<String> getArguments(int[] positions) throws InvalidNumberOfArgumentsException {
+    validateNumberOfArguments(args);
+    List<String> arguments = new ArrayList<>();
+    for (int position : positions) {
+      arguments.add(args[position]);
+    }
+    return arguments;
+  }
 }
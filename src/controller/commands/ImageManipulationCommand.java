@@ -1,5 +1,8 @@
 package controller.commands;
 
+import java.util.List;
+
+import controller.exceptions.InvalidNumberOfArgumentsException;
 import model.manipulator.ImageManipulatorVersion2;
 
 /**
@@ -15,10 +18,44 @@ public interface ImageManipulationCommand {
    */
   void execute(ImageManipulatorVersion2 manipulator) throws Exception;
 
+  /**
+   * Returns the name of the command, as typed by the user.
+   *
+   * @return the name of the command
+   */
+  String getName();
+
   /**
    * Returns the unique message to be printed before the executing the command.
    *
    * @return the unique message to be printed before the executing the command
    */
   String getPreExecutionMessage();
+
+  /**
+   * Returns the names of the images read by the command.
+   *
+   * @return the names of the images the command reads, in the order of its arguments
+   * @throws InvalidNumberOfArgumentsException if the command has not received the number of
+   *                                           arguments it requires
+   */
+  List<String> getInputImageNames() throws InvalidNumberOfArgumentsException;
+
+  /**
+   * Returns the names of the images written by the command.
+   *
+   * @return the names of the images the command writes, in the order of its arguments
+   * @throws InvalidNumberOfArgumentsException if the command has not received the number of
+   *                                           arguments it requires
+   */
+  List<String> getOutputImageNames() throws InvalidNumberOfArgumentsException;
+
+  /**
+   * Returns the names of the files read or written by the command.
+   *
+   * @return the names of the files the command accesses, as given in its arguments
+   * @throws InvalidNumberOfArgumentsException if the command has not received the number of
+   *                                           arguments it requires
+   */
+  List<String> getFileNames() throws InvalidNumberOfArgumentsException;
 }
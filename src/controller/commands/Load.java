@@ -1,6 +1,5 @@
 package controller.commands;
 
-import java.io.File;
 import java.nio.file.Paths;
 
 import controller.enums.Command;
@@ -28,8 +27,7 @@ public class Load extends AbstractImageManipulationCommand implements ImageManip
     validateNumberOfArguments(args);
     String filename = args[0];
     String imageName = args[1];
-    String imagePath = new File(Paths.get("").toAbsolutePath().toFile(), filename)
-            .getAbsolutePath();
+    String imagePath = Paths.get("").toAbsolutePath().resolve(filename).toString();
     ImageUtil util = getImageUtilBasedOnImageFileExtension(filename);
     Image loadedImage = util.getImageFromFile(imagePath);
     if (loadedImage != null) {
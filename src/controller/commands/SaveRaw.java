@@ -0,0 +1,40 @@
+package controller.commands;
+
+import java.io.File;
+
+import controller.enums.Command;
+import controller.utils.ImageUtil;
+import model.image.Image;
+import model.manipulator.ImageManipulatorVersion2;
+
+/**
+ * Represents the Save Raw command, which saves an image to a binary P6 (.ppm) or P5 (.pgm) file
+ * from the collection of active images in use by the current image manipulation session.
+ */
+public class SaveRaw extends AbstractImageManipulationCommand implements ImageManipulationCommand {
+
+  /**
+   * Initializes the fields specific to save raw command.
+   *
+   * @param args the arguments to the command
+   */
+  public SaveRaw(String[] args) {
+    super(Command.SAVE_RAW, args);
+  }
+
+  @Override
+  public void execute(ImageManipulatorVersion2 manipulator) throws Exception {
+    validateNumberOfArguments(args);
+    Image image;
+    String filename = args[0];
+    image = manipulator.getImage(args[1]);
+    File imageFile = new File(filename);
+    File parentFolder = imageFile.getParentFile();
+    if (parentFolder != null && !parentFolder.exists()) {
+      parentFolder.mkdirs();
+    }
+    String imagePath = imageFile.getAbsolutePath();
+    ImageUtil util = getRawImageUtilBasedOnImageFileExtension(filename);
+    util.saveImageToFile(image, imagePath);
+  }
+}
@@ -5,8 +5,13 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 
 import controller.CollectionOfCommands;
@@ -14,9 +19,14 @@ import controller.commands.ImageManipulationCommand;
 import controller.enums.Command;
 import controller.exceptions.CommandNotFoundException;
 import controller.exceptions.InvalidNumberOfArgumentsException;
+import controller.metrics.CommandMetrics;
+import controller.scripts.ScriptGraph;
+import controller.scripts.ScriptScheduler;
 import controller.utils.Messages;
+import model.image.RowBands;
 import model.manipulator.ImageManipulatorVersion2;
 import model.exceptions.ImageNotFoundException;
+import model.storage.StorageStatistics;
 
 /**
  * This class represents the Controller of the program. It is responsible for taking inputs,
@@ -32,6 +42,7 @@ public class ControllerImplVersion2 implements Controller {
   private final ImageManipulatorVersion2 manipulator;
   private final Scanner scanner;
   private final CollectionOfCommands commands;
+  private final CommandMetrics metrics;
 
   /**
    * Builds the Controller object. Takes the model, input and output streams as arguments.
@@ -41,38 +52,76 @@ public class ControllerImplVersion2 implements Controller {
    * @param out         the output source that extends Appendable
    */
   public ControllerImplVersion2(ImageManipulatorVersion2 manipulator, Readable in, Appendable out) {
+    this(manipulator, in, out, Paths.get("").toAbsolutePath().toFile());
+  }
+
+  /**
+   * Builds a Controller object that resolves the files named by the commands against the given
+   * directory instead of the working directory of the program.
+   *
+   * @param manipulator      the model of the program
+   * @param in               the input source that extends Readable
+   * @param out              the output source that extends Appendable
+   * @param workingDirectory the directory against which relative file names are resolved
+   */
+  public ControllerImplVersion2(ImageManipulatorVersion2 manipulator, Readable in, Appendable out,
+                                File workingDirectory) {
+    this(manipulator, in, out, workingDirectory, new CommandMetrics());
+  }
+
+  /**
+   * Builds a Controller object that resolves the files named by the commands against the given
+   * directory, and records the metrics of the commands in the given record.
+   *
+   * @param manipulator      the model of the program
+   * @param in               the input source that extends Readable
+   * @param out              the output source that extends Appendable
+   * @param workingDirectory the directory against which relative file names are resolved
+   * @param metrics          the record of the metrics of the commands executed
+   */
+  public ControllerImplVersion2(ImageManipulatorVersion2 manipulator, Readable in, Appendable out,
+                                File workingDirectory, CommandMetrics metrics) {
     this.manipulator = manipulator;
     this.out = out;
-    this.CURRENT_WORKING_DIRECTORY = Paths.get("").toAbsolutePath().toFile();
+    this.CURRENT_WORKING_DIRECTORY = workingDirectory.getAbsoluteFile();
     this.scanner = new Scanner(in);
     this.commands = new CollectionOfCommands();
+    this.metrics = metrics;
   }
 
   @Override
   public void run() throws IOException {
     out.append(Messages.WELCOME_MESSAGE);
-    while (true) {
-      out.append(Messages.TYPE_INSTRUCTION_MESSAGE);
-      String[] tokens = scanner.nextLine().split(" ");
-      if (tokens.length > 0) {
-        try {
-          String commandName = tokens[0];
-          if (commandName.equalsIgnoreCase("q")
-                  || commandName.equalsIgnoreCase(Command.QUIT.getName())) {
-            out.append(Command.QUIT.getPreExecutionMessage());
-            break;
+    try {
+      while (true) {
+        out.append(Messages.TYPE_INSTRUCTION_MESSAGE);
+        String[] tokens = scanner.nextLine().split(" ");
+        if (tokens.length > 0) {
+          try {
+            String commandName = tokens[0];
+            if (commandName.equalsIgnoreCase("q")
+                    || commandName.equalsIgnoreCase(Command.QUIT.getName())) {
+              out.append(Command.QUIT.getPreExecutionMessage());
+              break;
+            }
+            handleInput(tokens);
+          } catch (Exception e) {
+            out.append(e.getMessage()).append("\n");
           }
-          handleInput(tokens);
-        } catch (Exception e) {
-          out.append(e.getMessage()).append("\n");
         }
       }
+    } finally {
+      metrics.writeDump();
     }
   }
 
   private void handleInput(String[] tokens) throws Exception {
     ImageManipulationCommand command;
     String commandName = tokens[0];
+    if (commandName.equals(Command.STATS.getName())) {
+      printStatistics(Arrays.copyOfRange(tokens, 1, tokens.length));
+      return;
+    }
     if (tokens.length < 2) {
       throw new RuntimeException(Messages.ARGUMENTS_NOT_PROVIDED);
     }
@@ -81,44 +130,247 @@ public class ControllerImplVersion2 implements Controller {
       runScript(args);
       return;
     }
+    if (commandName.equals(Command.RUN_LAZY.getName())) {
+      runScriptLazily(args);
+      return;
+    }
+    if (commandName.equals(Command.RUN_PARALLEL.getName())) {
+      runScriptInParallel(args);
+      return;
+    }
     Function<String[], ImageManipulationCommand> cmd = commands.get(commandName);
-    command = cmd.apply(args);
+    command = cmd.apply(resolveFileArguments(commandName, args));
+    executeAndReport(command);
+  }
+
+  // Executes the command between the messages announcing it and its success.
+  private void executeAndReport(ImageManipulationCommand command) throws Exception {
     out.append(command.getPreExecutionMessage()).append("\n");
-    command.execute(manipulator);
+    execute(command);
     out.append(Messages.TASK_SUCCESSFUL);
   }
 
+  // Executes the command, recording the time and memory it takes.
+  private void execute(ImageManipulationCommand command) throws Exception {
+    CommandMetrics.Measurement measurement = metrics.start();
+    command.execute(manipulator);
+    metrics.record(command.getName(), measurement);
+  }
+
+  private void printStatistics(String[] args) throws Exception {
+    if (args.length != Command.STATS.getNumberOfArguments()) {
+      throw new InvalidNumberOfArgumentsException(Command.STATS.getName(),
+              Command.STATS.getNumberOfArguments(), args.length);
+    }
+    out.append(Command.STATS.getPreExecutionMessage()).append("\n");
+    out.append(metrics.getSummary());
+    out.append(Messages.RESULT_CACHE_STATISTICS).append(manipulator.getCacheStatistics().toString())
+            .append("\n");
+    StorageStatistics storageStatistics = manipulator.getStatistics();
+    if (storageStatistics != null) {
+      out.append(Messages.IMAGE_STORAGE_STATISTICS).append(storageStatistics.toString())
+              .append("\n");
+    }
+    metrics.writeDump();
+  }
+
   private void runScript(String[] args) throws Exception {
-    if (args.length != Command.RUN_SCRIPT.getNumberOfArguments()) {
-      throw new InvalidNumberOfArgumentsException(Command.RUN_SCRIPT.getName(),
-              Command.RUN_SCRIPT.getNumberOfArguments(), args.length);
+    List<String[]> lines = readScript(Command.RUN_SCRIPT, args);
+    if (lines == null) {
+      return;
+    }
+    for (String[] line : lines) {
+      if (!runLine(line)) {
+        return;
+      }
+    }
+    out.append(Messages.FINISHED_RUNNING_SCRIPT).append(args[0]).append("\n");
+  }
+
+  // Handles a line of a script as if it had been typed in. Returns false if the script has to be
+  // aborted.
+  private boolean runLine(String[] line) throws Exception {
+    try {
+      handleInput(line);
+    } catch (Exception e) {
+      reportFailure(e);
+      return false;
+    }
+    return true;
+  }
+
+  // Reports the failure of a line of a script that aborts the script. Failures that are not
+  // specific to scripts are rethrown, to be reported as for a command typed in.
+  private void reportFailure(Exception e) throws Exception {
+    if (e instanceof ImageNotFoundException) {
+      out.append(Messages.IMAGE_NOT_FOUND);
+    } else if (e instanceof CommandNotFoundException) {
+      out.append(Messages.INVALID_COMMAND);
+    } else {
+      throw e;
+    }
+    out.append(Messages.ABORTING_SCRIPT);
+  }
+
+  // Parses the whole script into a dependency graph first, and then executes only the commands
+  // that feed a save, removing each image as soon as no remaining command reads it. Lines that are
+  // not image commands are handled in place, in the order of the script.
+  private void runScriptLazily(String[] args) throws Exception {
+    List<String[]> lines = readScript(Command.RUN_LAZY, args);
+    if (lines == null) {
+      return;
+    }
+    ScriptGraph graph = new ScriptGraph(parseCommands(lines));
+    int skipped = 0;
+    for (int step = 0; step < graph.size(); step++) {
+      if (!graph.isLive(step)) {
+        skipped++;
+        continue;
+      }
+      ImageManipulationCommand command = graph.getCommand(step);
+      if (command == null) {
+        if (!runLine(lines.get(step))) {
+          return;
+        }
+      } else {
+        try {
+          executeAndReport(command);
+        } catch (Exception e) {
+          reportFailure(e);
+          return;
+        }
+      }
+      for (String imageName : graph.getReleasedImageNames(step)) {
+        manipulator.removeImage(imageName);
+      }
+    }
+    out.append(Messages.SKIPPED_COMMANDS).append(String.valueOf(skipped)).append("\n");
+    out.append(Messages.FINISHED_RUNNING_SCRIPT).append(args[0]).append("\n");
+  }
+
+  // Executes independent commands of the script concurrently, and reports the outcome of each
+  // line in the order of the script up to the first failure. Lines that are not image commands
+  // are handled in place once every line before them has completed, and the lines after them
+  // start only once they have been handled.
+  private void runScriptInParallel(String[] args) throws Exception {
+    List<String[]> lines = readScript(Command.RUN_PARALLEL, args);
+    if (lines == null) {
+      return;
+    }
+    List<ImageManipulationCommand> script = parseCommands(lines);
+    int step = 0;
+    while (step < script.size()) {
+      if (script.get(step) == null) {
+        if (!runLine(lines.get(step))) {
+          return;
+        }
+        step++;
+        continue;
+      }
+      int end = step;
+      while (end < script.size() && script.get(end) != null) {
+        end++;
+      }
+      if (!runInParallel(script.subList(step, end))) {
+        return;
+      }
+      step = end;
+    }
+    out.append(Messages.FINISHED_RUNNING_SCRIPT).append(args[0]).append("\n");
+  }
+
+  // Executes the given image commands on the pool that processes the bands of the images.
+  // Returns false if the script has to be aborted.
+  private boolean runInParallel(List<ImageManipulationCommand> script) throws Exception {
+    ScriptScheduler scheduler = new ScriptScheduler(script);
+    List<CompletableFuture<Void>> completions = scheduler.start(manipulator, RowBands.getPool());
+    try {
+      for (int step = 0; step < scheduler.size(); step++) {
+        out.append(scheduler.getCommand(step).getPreExecutionMessage()).append("\n");
+        try {
+          completions.get(step).join();
+        } catch (CompletionException e) {
+          reportFailure(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+          return false;
+        }
+        out.append(Messages.TASK_SUCCESSFUL);
+      }
+    } finally {
+      // let the commands already started finish before the session carries on
+      for (CompletableFuture<Void> completion : completions) {
+        try {
+          completion.join();
+        } catch (CompletionException | CancellationException e) {
+          // reported above if it came before the first failure
+        }
+      }
+    }
+    return true;
+  }
+
+  // Creates the image commands of the given lines of a script, with null in place of the lines
+  // that have to be handled as if they had been typed in: nested scripts, statistics, and lines
+  // that do not name a known command or do not give it the number of arguments it requires.
+  private List<ImageManipulationCommand> parseCommands(List<String[]> lines) {
+    List<ImageManipulationCommand> script = new ArrayList<>();
+    for (String[] line : lines) {
+      ImageManipulationCommand command = null;
+      if (line.length >= 2) {
+        try {
+          command = commands.get(line[0]).apply(resolveFileArguments(line[0],
+                  Arrays.copyOfRange(line, 1, line.length)));
+          command.getInputImageNames();
+        } catch (CommandNotFoundException | InvalidNumberOfArgumentsException e) {
+          command = null;
+        }
+      }
+      script.add(command);
+    }
+    return script;
+  }
+
+  // Returns the arguments of the named command with the file names among them resolved against
+  // the working directory.
+  private String[] resolveFileArguments(String commandName, String[] args) {
+    String[] resolved = args.clone();
+    for (Command command : Command.values()) {
+      if (command.getName().equals(commandName)) {
+        for (int index : command.getFileArguments()) {
+          if (index < resolved.length) {
+            resolved[index] = CURRENT_WORKING_DIRECTORY.toPath().resolve(resolved[index])
+                    .toString();
+          }
+        }
+      }
+    }
+    return resolved;
+  }
+
+  // Reads the lines of the script named by the arguments of the given command, skipping blank
+  // lines and comments, and splits them into tokens. Returns null if the script is not found.
+  private List<String[]> readScript(Command command, String[] args) throws Exception {
+    if (args.length != command.getNumberOfArguments()) {
+      throw new InvalidNumberOfArgumentsException(command.getName(),
+              command.getNumberOfArguments(), args.length);
     }
     String filename = args[0];
-    String scriptPath = new File(CURRENT_WORKING_DIRECTORY, filename).getAbsolutePath();
+    String scriptPath = CURRENT_WORKING_DIRECTORY.toPath().resolve(filename).toString();
     Scanner scanner;
     try {
       scanner = new Scanner(new FileInputStream(scriptPath));
     }
     catch (FileNotFoundException ex) {
       out.append(Messages.FILE_NOT_FOUND_ERROR).append(scriptPath).append("\n");
-      return;
+      return null;
     }
+    List<String[]> lines = new ArrayList<>();
     while (scanner.hasNextLine()) {
       String line = scanner.nextLine();
       if (line.length() != 0 && line.charAt(0) != '#') {
-        try {
-          handleInput(line.strip().split(" "));
-        } catch (ImageNotFoundException e) {
-          out.append(Messages.IMAGE_NOT_FOUND);
-          out.append(Messages.ABORTING_SCRIPT);
-          return;
-        } catch (CommandNotFoundException e) {
-          out.append(Messages.INVALID_COMMAND);
-          out.append(Messages.ABORTING_SCRIPT);
-          return;
-        }
+        lines.add(line.strip().split(" "));
       }
     }
-    out.append(Messages.FINISHED_RUNNING_SCRIPT).append(filename).append("\n");
+    scanner.close();
+    return lines;
   }
 }
@@ -19,6 +19,7 @@ import controller.commands.Sepia;
 import controller.commands.Sharpen;
 import controller.commands.Split;
 import controller.commands.VerticalFlip;
+import controller.metrics.CommandMetrics;
 import controller.utils.CommonImageUtil;
 import model.image.Image;
 import model.manipulator.ImageManipulatorVersion2;
@@ -34,6 +35,7 @@ import view.IView;
 public class GUIController implements Features {
   private final ImageManipulatorVersion2 model;
   private final IView view;
+  private final CommandMetrics metrics;
   protected String imageInFocus;
   protected ImageManipulationCommand command;
 
@@ -45,11 +47,20 @@ public class GUIController implements Features {
   public GUIController(ImageManipulatorVersion2 model, IView view) {
     this.model = model;
     this.view = view;
+    this.metrics = new CommandMetrics();
   }
 
   @Override
   public void run() throws IOException {
     this.view.addFeatures(this);
+    // the window exits the program when it is closed, so the metrics are written on the way out
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        metrics.writeDump();
+      } catch (IOException e) {
+        System.err.println(e.getMessage());
+      }
+    }));
   }
 
   @Override
@@ -110,7 +121,9 @@ public class GUIController implements Features {
   }
 
   private void executeCommand() throws Exception {
+    CommandMetrics.Measurement measurement = metrics.start();
     command.execute(model);
+    metrics.record(command.getName(), measurement);
   }
 
   @Override
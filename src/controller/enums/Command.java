@@ -6,55 +6,82 @@ package controller.enums;
 public enum Command {
 
   QUIT(0, 0, "quit", "quit program",
-          "quit", "Quitting..."),
+          "quit", "Quitting...",
+          new int[]{}, new int[]{}),
   LOAD(1, 2, "load", "load image",
-          "load images/{image-filename}.ppm {image-name}", "Loading image..."),
+          "load images/{image-filename}.ppm {image-name}", "Loading image...",
+          new int[]{}, new int[]{1}, new int[]{0}),
   SAVE(2, 2, "save", "save image",
-          "save images/{image-filename}.ppm {image-name}", "Saving image..."),
+          "save images/{image-filename}.ppm {image-name}", "Saving image...",
+          new int[]{1}, new int[]{}, new int[]{0}),
   BRIGHTEN(3, 3, "brighten", "brighten image",
           "brighten {brightening-amount} {image-name} {brightened-image-name}",
-          "Brightening image..."),
+          "Brightening image...",
+          new int[]{1}, new int[]{2}),
   GREYSCALE(4, 3, "greyscale",
           "create greyscale image",
           "greyscale {component-name} {image-name} {greyscale-image-name}",
-          "Creating greyscale image..."),
+          "Creating greyscale image...",
+          new int[]{1}, new int[]{2}),
   SPLIT(5, 4, "rgb-split",
           "split image into greyscale images",
           "rgb-split {image-name} {red-image-name} {green-image-name} {blue-image-name}",
-          "Splitting image..."),
+          "Splitting image...",
+          new int[]{0}, new int[]{1, 2, 3}),
   COMBINE(6, 4, "rgb-combine",
           "combine greyscale images",
           "rgb-combine {image-name} {red-image-name} {green-image-name} {blue-image-name}",
-          "Combining images..."),
+          "Combining images...",
+          new int[]{1, 2, 3}, new int[]{0}),
   HORIZONTAL_FLIP(7, 2, "horizontal-flip",
           "flip image horizontally",
           "horizontal-flip {image-name} {flipped-image-name}",
-          "Horizontally flipping image..."),
+          "Horizontally flipping image...",
+          new int[]{0}, new int[]{1}),
   VERTICAL_FLIP(8, 2, "vertical-flip",
           "flip image vertically",
           "vertical-flip {image-name} {flipped-image-name}",
-          "Vertically flipping image..."),
+          "Vertically flipping image...",
+          new int[]{0}, new int[]{1}),
 
   RUN_SCRIPT(9, 1, "run", "run script",
-          "run scripts/{script-filename}.txt", "Running script..."),
+          "run scripts/{script-filename}.txt", "Running script...",
+          new int[]{}, new int[]{}),
 
   BLUR(10,2,"blur","blur an image",
-          "blur {image-name} {blurred-image-name}", "Blurring Image..."),
+          "blur {image-name} {blurred-image-name}", "Blurring Image...",
+          new int[]{0}, new int[]{1}),
 
   SHARPEN(11,2,"sharpen","sharpen an image",
           "sharpen {image-name} {sharpened-image-name}",
-          "Sharpening Image..."),
+          "Sharpening Image...",
+          new int[]{0}, new int[]{1}),
 
   SEPIA(12,2,"sepia","sepia an image",
           "sepia {image-name} {sepia-image-name}",
-          "Creating Sepia Image..."),
+          "Creating Sepia Image...",
+          new int[]{0}, new int[]{1}),
 
   DITHER(13,3,"dither","create a dithered image",
           "dither {component-name} {image-name} {dithered-image-name}",
-          "Creating dithered Image..."),
+          "Creating dithered Image...",
+          new int[]{1}, new int[]{2}),
   MOSAIC(14, 3, "mosaic", "mosaic image",
           "mosaic {mosaicking-amount} {image-name} {mosaicked-image-name}",
-          "Mosaicking image...");
+          "Mosaicking image...",
+          new int[]{1}, new int[]{2}),
+  SAVE_RAW(15, 2, "save-raw", "save image as raw PPM or PGM",
+          "save-raw images/{image-filename}.ppm {image-name}", "Saving image...",
+          new int[]{1}, new int[]{}, new int[]{0}),
+  RUN_LAZY(16, 1, "run-lazy", "run script, computing only the images that are saved",
+          "run-lazy scripts/{script-filename}.txt", "Running script...",
+          new int[]{}, new int[]{}),
+  RUN_PARALLEL(17, 1, "run-parallel", "run script, executing independent commands concurrently",
+          "run-parallel scripts/{script-filename}.txt", "Running script...",
+          new int[]{}, new int[]{}),
+  STATS(18, 0, "stats", "print the time and memory taken by the commands run so far",
+          "stats", "Printing command statistics...",
+          new int[]{}, new int[]{});
 
 
   private final int commandNumber;
@@ -63,6 +90,9 @@ public enum Command {
   private final String description;
   private final String syntax;
   private final String preExecutionMessage;
+  private final int[] inputArguments;
+  private final int[] outputArguments;
+  private final int[] fileArguments;
 
   /**
    * Initializes a command with its properties.
@@ -73,15 +103,40 @@ public enum Command {
    * @param description a brief description of the command
    * @param syntax the syntax of the command
    * @param preExecutionMessage the message to be printed before executing the command
+   * @param inputArguments the positions of the arguments naming the images the command reads
+   * @param outputArguments the positions of the arguments naming the images the command writes
    */
   Command(int commandNumber, int numberOfArguments, String name, String description, String syntax,
-          String preExecutionMessage) {
+          String preExecutionMessage, int[] inputArguments, int[] outputArguments) {
+    this(commandNumber, numberOfArguments, name, description, syntax, preExecutionMessage,
+            inputArguments, outputArguments, new int[]{});
+  }
+
+  /**
+   * Initializes a command that reads or writes files with its properties.
+   *
+   * @param commandNumber the position of the command in the sequence
+   * @param numberOfArguments the number of arguments required by the command
+   * @param name the name of the command
+   * @param description a brief description of the command
+   * @param syntax the syntax of the command
+   * @param preExecutionMessage the message to be printed before executing the command
+   * @param inputArguments the positions of the arguments naming the images the command reads
+   * @param outputArguments the positions of the arguments naming the images the command writes
+   * @param fileArguments the positions of the arguments naming the files the command accesses
+   */
+  Command(int commandNumber, int numberOfArguments, String name, String description, String syntax,
+          String preExecutionMessage, int[] inputArguments, int[] outputArguments,
+          int[] fileArguments) {
     this.commandNumber = commandNumber;
     this.numberOfArguments = numberOfArguments;
     this.name = name;
     this.description = description;
     this.syntax = syntax;
     this.preExecutionMessage = preExecutionMessage;
+    this.inputArguments = inputArguments;
+    this.outputArguments = outputArguments;
+    this.fileArguments = fileArguments;
   }
 
   /**
@@ -137,4 +192,32 @@ public enum Command {
   public String getPreExecutionMessage() {
     return preExecutionMessage;
   }
+
+  /**
+   * Gives the positions of the arguments that name the images read by the command.
+   *
+   * @return the positions of the input image names among the arguments
+   */
+  public int[] getInputArguments() {
+    return inputArguments.clone();
+  }
+
+  /**
+   * Gives the positions of the arguments that name the images written by the command. Commands
+   * that write no image, such as save, are executed for their effect outside the program.
+   *
+   * @return the positions of the output image names among the arguments
+   */
+  public int[] getOutputArguments() {
+    return outputArguments.clone();
+  }
+
+  /**
+   * Gives the positions of the arguments that name the files read or written by the command.
+   *
+   * @return the positions of the file names among the arguments
+   */
+  public int[] getFileArguments() {
+    return fileArguments.clone();
+  }
 }
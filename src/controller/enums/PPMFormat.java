@@ -0,0 +1,72 @@
+package controller.enums;
+
+/**
+ * This enum represents the variants of the Netpbm formats that can be read and written by the
+ * program, identified by the magic number at the start of the file.
+ */
+public enum PPMFormat {
+
+  PLAIN_RGB("P3", 3, false),
+  RAW_GREY("P5", 1, true),
+  RAW_RGB("P6", 3, true);
+
+  private final String magicNumber;
+  private final int numberOfChannels;
+  private final boolean binary;
+
+  /**
+   * Initializes a format with its properties.
+   *
+   * @param magicNumber the magic number at the start of files of this format
+   * @param numberOfChannels the number of samples stored for each pixel
+   * @param binary whether the samples are stored as bytes rather than as decimal text
+   */
+  PPMFormat(String magicNumber, int numberOfChannels, boolean binary) {
+    this.magicNumber = magicNumber;
+    this.numberOfChannels = numberOfChannels;
+    this.binary = binary;
+  }
+
+  /**
+   * Gives the magic number at the start of files of this format.
+   *
+   * @return the magic number
+   */
+  public String getMagicNumber() {
+    return magicNumber;
+  }
+
+  /**
+   * Gives the number of samples stored for each pixel.
+   *
+   * @return the number of samples stored for each pixel
+   */
+  public int getNumberOfChannels() {
+    return numberOfChannels;
+  }
+
+  /**
+   * Gives whether the samples are stored as bytes, one per sample up to a maximum value of 255 and
+   * two big-endian bytes per sample above it, rather than as decimal text.
+   *
+   * @return true if the format is a binary one, false otherwise
+   */
+  public boolean isBinary() {
+    return binary;
+  }
+
+  /**
+   * Gives the format identified by the given magic number.
+   *
+   * @param magicNumber the magic number at the start of a file
+   * @return the format, or null if the magic number is not one of a supported format
+   */
+  public static PPMFormat fromMagicNumber(String magicNumber) {
+    for (PPMFormat format : values()) {
+      if (format.magicNumber.equals(magicNumber)) {
+        return format;
+      }
+    }
+    return null;
+  }
+}
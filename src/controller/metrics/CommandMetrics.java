@@ -0,0 +1,302 @@
+package controller.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the wall time, the CPU time and the bytes allocated by each command executed by a
+ * controller, and keeps a histogram of each of them per command name. The CPU time and the
+ * allocations are summed over all the threads of the JVM, so that the work an operation hands to
+ * the pool processing the row bands of the images is included. They are therefore only meaningful
+ * for commands that are executed one at a time, and are not recorded where the JVM does not
+ * measure them per thread. The metrics of a session run alongside others, as in the server mode,
+ * are instead measured on the thread executing each command only (see {@link #forSession(int)}).
+ *
+ * <p>Reading the CPU time and allocations of threads is not free, so they are only measured if the
+ * {@code imagemanipulator.metrics} system property is true or the metrics are dumped to a file; the
+ * wall time is always measured. The usage is read once when a command starts and once when it
+ * finishes.
+ *
+ * <p>The percentiles can be printed as a table, or dumped as comma separated values to the file
+ * given by the {@code imagemanipulator.metrics.file} system property.
+ */
+public class CommandMetrics {
+
+  private static final String FILE_PROPERTY = "imagemanipulator.metrics.file";
+
+  private static final String ENABLED_PROPERTY = "imagemanipulator.metrics";
+
+  private static final double[] PERCENTILES = {50, 95, 99};
+
+  private static final String[] METRICS = {"wall", "cpu", "allocated"};
+
+  private static final String[] UNITS = {"ns", "ns", "bytes"};
+
+  private final boolean wholeJvm;
+  private final ThreadMXBean threads;
+  private final com.sun.management.ThreadMXBean allocations;
+  private final Path dumpFile;
+  private final Map<String, Histogram[]> histograms;
+
+  /**
+   * Creates an empty record of metrics, which is dumped to the file given by the
+   * {@code imagemanipulator.metrics.file} system property, if it is set.
+   */
+  public CommandMetrics() {
+    this(System.getProperty(FILE_PROPERTY) == null ? null
+            : Paths.get(System.getProperty(FILE_PROPERTY)));
+  }
+
+  /**
+   * Creates an empty record of metrics, which is dumped to the given file.
+   *
+   * @param dumpFile the file to which the metrics are dumped, or null if they are not to be dumped
+   */
+  public CommandMetrics(Path dumpFile) {
+    this(dumpFile, true);
+  }
+
+  /**
+   * Creates an empty record of metrics, which is dumped to the given file.
+   *
+   * @param dumpFile the file to which the metrics are dumped, or null if they are not to be dumped
+   * @param wholeJvm true to sum the CPU time and allocations over all the threads of the JVM, false
+   *                 to measure them on the thread executing each command only
+   */
+  public CommandMetrics(Path dumpFile, boolean wholeJvm) {
+    this.wholeJvm = wholeJvm;
+    this.dumpFile = dumpFile;
+    this.histograms = new TreeMap<>();
+    if (dumpFile == null && !Boolean.getBoolean(ENABLED_PROPERTY)) {
+      this.threads = null;
+      this.allocations = null;
+      return;
+    }
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    this.threads = threadBean.isThreadCpuTimeSupported() ? threadBean : null;
+    if (threadBean instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+      this.allocations = (com.sun.management.ThreadMXBean) threadBean;
+    } else {
+      this.allocations = null;
+    }
+  }
+
+  /**
+   * Creates an empty record of the metrics of one of several sessions running at the same time.
+   * The CPU time and allocations are measured on the thread executing each command only, so they
+   * leave out the work of other sessions, but also the row bands processed on the shared pool. If
+   * the {@code imagemanipulator.metrics.file} system property is set, the metrics are dumped to a
+   * file of their own, named after it with the session number inserted before the extension.
+   *
+   * @param sessionNumber the number identifying the session
+   * @return the record of the metrics of the session
+   */
+  public static CommandMetrics forSession(int sessionNumber) {
+    String file = System.getProperty(FILE_PROPERTY);
+    if (file == null) {
+      return new CommandMetrics(null, false);
+    }
+    Path path = Paths.get(file);
+    String name = path.getFileName().toString();
+    int extension = name.lastIndexOf('.');
+    String sessionName = extension > 0
+            ? name.substring(0, extension) + "-" + sessionNumber + name.substring(extension)
+            : name + "-" + sessionNumber;
+    return new CommandMetrics(path.resolveSibling(sessionName), false);
+  }
+
+  /**
+   * The usage of the JVM at the start of a command, against which its usage at the end of the
+   * command is measured.
+   */
+  public static final class Measurement {
+    private final long time;
+    private final long[] threadIds;
+    private final long[] cpuTimes;
+    private final long[] allocatedBytes;
+
+    private Measurement(long time, long[] threadIds, long[] cpuTimes, long[] allocatedBytes) {
+      this.time = time;
+      this.threadIds = threadIds;
+      this.cpuTimes = cpuTimes;
+      this.allocatedBytes = allocatedBytes;
+    }
+  }
+
+  /**
+   * Takes the measurement to be passed to {@link #record(String, Measurement)} once the command
+   * about to be executed has finished.
+   *
+   * @return the usage of the JVM at the start of the command
+   */
+  public Measurement start() {
+    return measure(null);
+  }
+
+  // Reads the clock and the usage of the threads measured, which are either all the threads of the
+  // JVM, or the thread measured at the given start or else the current thread.
+  private Measurement measure(Measurement start) {
+    long time = System.nanoTime();
+    if (threads == null && allocations == null) {
+      return new Measurement(time, null, null, null);
+    }
+    long[] threadIds;
+    if (wholeJvm) {
+      threadIds = ManagementFactory.getThreadMXBean().getAllThreadIds();
+    } else {
+      threadIds = start == null ? new long[]{Thread.currentThread().getId()} : start.threadIds;
+    }
+    return new Measurement(time, threadIds, getCpuTimes(threadIds), getAllocatedBytes(threadIds));
+  }
+
+  private long[] getCpuTimes(long[] threadIds) {
+    if (threads == null) {
+      return null;
+    }
+    long[] cpuTimes = new long[threadIds.length];
+    for (int i = 0; i < threadIds.length; i++) {
+      cpuTimes[i] = threads.getThreadCpuTime(threadIds[i]);
+    }
+    return cpuTimes;
+  }
+
+  private long[] getAllocatedBytes(long[] threadIds) {
+    if (allocations == null) {
+      return null;
+    }
+    return allocations.getThreadAllocatedBytes(threadIds);
+  }
+
+  /**
+   * Records the wall time, CPU time and bytes allocated since the given measurement was taken
+   * against the given command.
+   *
+   * @param commandName the name of the command that has finished
+   * @param measurement the measurement taken when the command started
+   */
+  public void record(String commandName, Measurement measurement) {
+    Measurement end = measure(measurement);
+    long wallTime = end.time - measurement.time;
+    long cpuTime = getUsage(measurement.threadIds, measurement.cpuTimes, end.threadIds,
+            end.cpuTimes);
+    long allocated = getUsage(measurement.threadIds, measurement.allocatedBytes, end.threadIds,
+            end.allocatedBytes);
+    synchronized (this) {
+      Histogram[] commandHistograms = histograms.computeIfAbsent(commandName,
+              name -> new Histogram[]{new Histogram(), new Histogram(), new Histogram()});
+      commandHistograms[0].record(wallTime);
+      if (cpuTime >= 0) {
+        commandHistograms[1].record(cpuTime);
+      }
+      if (allocated >= 0) {
+        commandHistograms[2].record(allocated);
+      }
+    }
+  }
+
+  // Sums the usage of every thread alive at the end since the start, counting threads started in
+  // between from zero. Threads that ended in between are lost. Returns -1 if the usage is not
+  // measured.
+  private static long getUsage(long[] startIds, long[] startUsage, long[] endIds,
+                               long[] endUsage) {
+    if (startUsage == null || endUsage == null) {
+      return -1;
+    }
+    Map<Long, Long> usageAtStart = new HashMap<>();
+    for (int i = 0; i < startIds.length; i++) {
+      usageAtStart.put(startIds[i], startUsage[i]);
+    }
+    long usage = 0;
+    for (int i = 0; i < endIds.length; i++) {
+      // -1 marks a thread that has ended or is not measured
+      if (endUsage[i] >= 0) {
+        usage += endUsage[i] - Math.max(0, usageAtStart.getOrDefault(endIds[i], 0L));
+      }
+    }
+    return Math.max(0, usage);
+  }
+
+  /**
+   * Returns a table of the 50th, 95th and 99th percentiles of the wall time and CPU time in
+   * milliseconds and of the allocations in megabytes of each command recorded so far.
+   *
+   * @return the table of percentiles
+   */
+  public synchronized String getSummary() {
+    StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+            "%-16s %6s %26s %26s %26s\n", "command", "count", "wall p50/p95/p99 (ms)",
+            "cpu p50/p95/p99 (ms)", "allocated p50/p95/p99 (MB)"));
+    for (Map.Entry<String, Histogram[]> entry : histograms.entrySet()) {
+      Histogram[] commandHistograms = entry.getValue();
+      summary.append(String.format(Locale.ROOT, "%-16s %6d %26s %26s %26s\n", entry.getKey(),
+              commandHistograms[0].getCount(), formatPercentiles(commandHistograms[0], 1e6),
+              formatPercentiles(commandHistograms[1], 1e6),
+              formatPercentiles(commandHistograms[2], 1 << 20)));
+    }
+    return summary.toString();
+  }
+
+  private static String formatPercentiles(Histogram histogram, double unit) {
+    if (histogram.getCount() == 0) {
+      return "-";
+    }
+    StringBuilder percentiles = new StringBuilder();
+    for (double percentile : PERCENTILES) {
+      if (percentiles.length() > 0) {
+        percentiles.append(" / ");
+      }
+      percentiles.append(String.format(Locale.ROOT, "%.1f",
+              histogram.getPercentile(percentile) / unit));
+    }
+    return percentiles.toString();
+  }
+
+  /**
+   * Returns the metrics recorded so far as comma separated values, with a header line followed by
+   * one line for each metric of each command, holding the number of values, the percentiles, the
+   * maximum and the total in nanoseconds or bytes.
+   *
+   * @return the metrics as comma separated values
+   */
+  public synchronized String getDump() {
+    StringBuilder dump = new StringBuilder("command,metric,unit,count,p50,p95,p99,max,total\n");
+    for (Map.Entry<String, Histogram[]> entry : histograms.entrySet()) {
+      for (int metric = 0; metric < METRICS.length; metric++) {
+        Histogram histogram = entry.getValue()[metric];
+        if (histogram.getCount() == 0) {
+          continue;
+        }
+        dump.append(entry.getKey()).append(',').append(METRICS[metric]).append(',')
+                .append(UNITS[metric]).append(',').append(histogram.getCount());
+        for (double percentile : PERCENTILES) {
+          dump.append(',').append(histogram.getPercentile(percentile));
+        }
+        dump.append(',').append(histogram.getMaximum()).append(',')
+                .append(histogram.getTotal()).append('\n');
+      }
+    }
+    return dump.toString();
+  }
+
+  /**
+   * Writes the dump of the metrics recorded so far to the dump file, replacing its contents. Does
+   * nothing if there is no dump file.
+   *
+   * @throws IOException if the file could not be written
+   */
+  public void writeDump() throws IOException {
+    if (dumpFile != null) {
+      Files.write(dumpFile, getDump().getBytes(StandardCharsets.US_ASCII));
+    }
+  }
+}
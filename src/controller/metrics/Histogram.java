@@ -0,0 +1,100 @@
+package controller.metrics;
+
+/**
+ * Counts non-negative values in buckets whose width grows with the values, so that percentiles
+ * can be read back to within about 3% however many values are recorded and however far apart
+ * they are. Values below 32 are counted exactly; larger values share a bucket with the values
+ * that agree with them in their 6 most significant bits.
+ */
+public class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private final long[] counts = new long[(Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS];
+  private long count;
+  private long total;
+  private long maximum;
+
+  /**
+   * Records a value. Negative values are recorded as 0.
+   *
+   * @param value the value to be recorded
+   */
+  public void record(long value) {
+    value = Math.max(0, value);
+    counts[indexOf(value)]++;
+    count++;
+    total += value;
+    maximum = Math.max(maximum, value);
+  }
+
+  private static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  // Returns the largest value counted in the bucket at the given index.
+  private static long upperBoundOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long top = index % SUB_BUCKETS + SUB_BUCKETS;
+    return ((top + 1) << shift) - 1;
+  }
+
+  /**
+   * Returns the number of values recorded.
+   *
+   * @return the number of values recorded
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the sum of the values recorded.
+   *
+   * @return the sum of the values recorded
+   */
+  public long getTotal() {
+    return total;
+  }
+
+  /**
+   * Returns the largest value recorded, or 0 if no value has been recorded.
+   *
+   * @return the largest value recorded
+   */
+  public long getMaximum() {
+    return maximum;
+  }
+
+  /**
+   * Returns the smallest value that is at least as large as the given percentage of the values
+   * recorded, rounded up to the end of its bucket but never beyond the largest value recorded.
+   *
+   * @param percentile the percentage of values, between 0 and 100
+   * @return the value at the percentile, or 0 if no value has been recorded
+   * @throws IllegalArgumentException if the percentage is not between 0 and 100
+   */
+  public long getPercentile(double percentile) throws IllegalArgumentException {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100");
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int index = 0; index < counts.length && seen < count; index++) {
+      seen += counts[index];
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(index), maximum);
+      }
+    }
+    return 0;
+  }
+}
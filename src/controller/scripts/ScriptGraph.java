@@ -0,0 +1,168 @@
+package controller.scripts;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import controller.commands.ImageManipulationCommand;
+import controller.exceptions.InvalidNumberOfArgumentsException;
+
+/**
+ * The dependency graph of the commands of a script over the names of the images they read and
+ * write. Each image a command reads is produced by the last command before it that writes an
+ * image of that name, or is already held by the manipulator if there is no such command.
+ *
+ * <p>Commands that write no image, such as save, are executed for their effect outside the
+ * program and are always live. Any other command is live only if one of the images it writes is
+ * read by a live command, so commands whose results are never saved are skipped. An image written
+ * by the script is released as soon as the last live command reading it has been executed; images
+ * the script only reads are never released.
+ *
+ * <p>Lines of the script that are not image commands, such as nested scripts or statistics, are
+ * executed in place by the caller. Their effect on the images cannot be told in advance, so they
+ * are always live and are taken to read every image written before them: every command preceding
+ * them is executed, and nothing written before them is released until they have been executed.
+ */
+public class ScriptGraph {
+
+  private final List<ImageManipulationCommand> commands;
+  private final List<List<String>> inputs;
+  private final List<List<String>> outputs;
+  private final int[][] producers;
+  private final boolean[] live;
+  private final List<List<String>> releasedImageNames;
+
+  /**
+   * Builds the graph of the given commands, in the order of the script.
+   *
+   * @param commands the commands of the script, with null in place of the lines executed in place
+   * @throws InvalidNumberOfArgumentsException if a command has not received the number of arguments
+   *                                           it requires
+   */
+  public ScriptGraph(List<ImageManipulationCommand> commands)
+          throws InvalidNumberOfArgumentsException {
+    int size = commands.size();
+    this.commands = new ArrayList<>(commands);
+    this.inputs = new ArrayList<>();
+    this.outputs = new ArrayList<>();
+    this.producers = new int[size][];
+    this.live = new boolean[size];
+    this.releasedImageNames = new ArrayList<>();
+
+    Map<String, Integer> lastWriters = new HashMap<>();
+    for (int step = 0; step < size; step++) {
+      ImageManipulationCommand command = commands.get(step);
+      List<String> stepInputs;
+      List<String> stepOutputs;
+      if (command == null) {
+        stepInputs = new ArrayList<>(new TreeSet<>(lastWriters.keySet()));
+        stepOutputs = new ArrayList<>();
+      } else {
+        stepInputs = command.getInputImageNames();
+        stepOutputs = command.getOutputImageNames();
+      }
+      inputs.add(stepInputs);
+      outputs.add(stepOutputs);
+      producers[step] = new int[stepInputs.size()];
+      for (int i = 0; i < stepInputs.size(); i++) {
+        producers[step][i] = lastWriters.getOrDefault(stepInputs.get(i), -1);
+      }
+      for (String output : stepOutputs) {
+        lastWriters.put(output, step);
+      }
+      releasedImageNames.add(new ArrayList<>());
+    }
+
+    // producers always come before their consumers, so a single backward pass finds every command
+    // that feeds a live one
+    for (int step = size - 1; step >= 0; step--) {
+      live[step] |= outputs.get(step).isEmpty();
+      if (live[step]) {
+        for (int producer : producers[step]) {
+          if (producer >= 0) {
+            live[producer] = true;
+          }
+        }
+      }
+    }
+    findReleases();
+  }
+
+  // Releases each image written by a live command after the last live command that reads it,
+  // or right after it is written if no live command reads it.
+  private void findReleases() {
+    int size = commands.size();
+    List<Map<String, Integer>> lastReaders = new ArrayList<>();
+    for (int step = 0; step < size; step++) {
+      lastReaders.add(new HashMap<>());
+    }
+    for (int step = 0; step < size; step++) {
+      if (!live[step]) {
+        continue;
+      }
+      for (int i = 0; i < producers[step].length; i++) {
+        int producer = producers[step][i];
+        if (producer >= 0) {
+          lastReaders.get(producer).put(inputs.get(step).get(i), step);
+        }
+      }
+    }
+    for (int step = 0; step < size; step++) {
+      if (!live[step]) {
+        continue;
+      }
+      for (String output : outputs.get(step)) {
+        int releaseStep = lastReaders.get(step).getOrDefault(output, step);
+        // a command that reads and overwrites an image replaces it rather than releasing it
+        if (releaseStep == step || !outputs.get(releaseStep).contains(output)) {
+          if (!releasedImageNames.get(releaseStep).contains(output)) {
+            releasedImageNames.get(releaseStep).add(output);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of commands in the script.
+   *
+   * @return the number of commands
+   */
+  public int size() {
+    return commands.size();
+  }
+
+  /**
+   * Returns the command at the given position in the script.
+   *
+   * @param step the position of the command
+   * @return the command, or null if the line at that position is executed in place
+   */
+  public ImageManipulationCommand getCommand(int step) {
+    return commands.get(step);
+  }
+
+  /**
+   * Tells whether the command at the given position contributes to an effect of the script, i.e.
+   * whether it has to be executed.
+   *
+   * @param step the position of the command
+   * @return true if the command has to be executed
+   */
+  public boolean isLive(int step) {
+    return live[step];
+  }
+
+  /**
+   * Returns the names of the images no longer needed once the command at the given position has
+   * been executed.
+   *
+   * @param step the position of the command
+   * @return the names of the images to be released after the command
+   */
+  public List<String> getReleasedImageNames(int step) {
+    return new ArrayList<>(releasedImageNames.get(step));
+  }
+}
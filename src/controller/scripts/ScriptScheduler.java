@@ -0,0 +1,163 @@
+package controller.scripts;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.commands.ImageManipulationCommand;
+import controller.exceptions.InvalidNumberOfArgumentsException;
+import model.manipulator.ImageManipulatorVersion2;
+
+/**
+ * Executes the commands of a script concurrently wherever the order of the script allows it. A
+ * command depends on every earlier command it conflicts with over an image name or a file: it
+ * waits for the last earlier command writing an image it reads or writes, and for the commands
+ * reading an image it overwrites since that image was last written. Files are treated as written
+ * by every command accessing them. Commands that do not depend on each other run at the same time
+ * on the given executor.
+ *
+ * <p>A command is only started if no earlier command in the script has failed, and never if one of
+ * the commands it depends on has failed. Every command before the first failure in the order of
+ * the script is therefore always executed, so the outcome reported for each command up to that
+ * failure does not depend on the timing of the execution. Later commands that do not depend on the
+ * failed one may or may not have been executed.
+ */
+public class ScriptScheduler {
+
+  private final List<ImageManipulationCommand> commands;
+  private final List<int[]> dependencies;
+
+  /**
+   * Works out the dependencies between the given commands, in the order of the script.
+   *
+   * @param commands the commands of the script
+   * @throws InvalidNumberOfArgumentsException if a command has not received the number of arguments
+   *                                           it requires
+   */
+  public ScriptScheduler(List<ImageManipulationCommand> commands)
+          throws InvalidNumberOfArgumentsException {
+    this.commands = new ArrayList<>(commands);
+    this.dependencies = new ArrayList<>();
+
+    // images and files share one namespace, told apart by a prefix
+    Map<String, Integer> lastWriters = new HashMap<>();
+    Map<String, List<Integer>> readersSinceWrite = new HashMap<>();
+    for (int step = 0; step < commands.size(); step++) {
+      ImageManipulationCommand command = commands.get(step);
+      List<String> reads = new ArrayList<>();
+      List<String> writes = new ArrayList<>();
+      for (String imageName : command.getInputImageNames()) {
+        reads.add("image:" + imageName);
+      }
+      for (String imageName : command.getOutputImageNames()) {
+        writes.add("image:" + imageName);
+      }
+      for (String fileName : command.getFileNames()) {
+        writes.add("file:" + Paths.get(fileName).toAbsolutePath().normalize());
+      }
+
+      TreeSet<Integer> stepDependencies = new TreeSet<>();
+      for (String resource : reads) {
+        Integer writer = lastWriters.get(resource);
+        if (writer != null) {
+          stepDependencies.add(writer);
+        }
+      }
+      for (String resource : writes) {
+        Integer writer = lastWriters.get(resource);
+        if (writer != null) {
+          stepDependencies.add(writer);
+        }
+        stepDependencies.addAll(readersSinceWrite.getOrDefault(resource, new ArrayList<>()));
+      }
+      stepDependencies.remove(step);
+      dependencies.add(stepDependencies.stream().mapToInt(Integer::intValue).toArray());
+
+      for (String resource : reads) {
+        readersSinceWrite.computeIfAbsent(resource, name -> new ArrayList<>()).add(step);
+      }
+      for (String resource : writes) {
+        lastWriters.put(resource, step);
+        readersSinceWrite.remove(resource);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of commands in the script.
+   *
+   * @return the number of commands
+   */
+  public int size() {
+    return commands.size();
+  }
+
+  /**
+   * Returns the command at the given position in the script.
+   *
+   * @param step the position of the command
+   * @return the command
+   */
+  public ImageManipulationCommand getCommand(int step) {
+    return commands.get(step);
+  }
+
+  /**
+   * Returns the positions of the earlier commands the command at the given position waits for.
+   *
+   * @param step the position of the command
+   * @return the positions of the commands it depends on, in increasing order
+   */
+  public int[] getDependencies(int step) {
+    return dependencies.get(step).clone();
+  }
+
+  /**
+   * Starts executing the script on the given manipulator. Each command is executed on the given
+   * executor once the commands it depends on have completed.
+   *
+   * @param manipulator the image manipulator on which the commands are executed
+   * @param executor the executor running the commands
+   * @return the completion of each command, in the order of the script. A command that was not
+   *         executed because of an earlier failure completes with a
+   *         {@link CancellationException}, and a failed command with the exception it threw,
+   *         wrapped in a {@link CompletionException}
+   */
+  public List<CompletableFuture<Void>> start(ImageManipulatorVersion2 manipulator,
+                                             Executor executor) {
+    AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+    List<CompletableFuture<Void>> completions = new ArrayList<>();
+    for (int step = 0; step < commands.size(); step++) {
+      int[] stepDependencies = dependencies.get(step);
+      CompletableFuture<?>[] predecessors = new CompletableFuture<?>[stepDependencies.length];
+      for (int i = 0; i < stepDependencies.length; i++) {
+        predecessors[i] = completions.get(stepDependencies[i]);
+      }
+      int stepNumber = step;
+      ImageManipulationCommand command = commands.get(step);
+      CompletableFuture<Void> completion = CompletableFuture.allOf(predecessors)
+              .handleAsync((ignored, failure) -> {
+                if (failure != null || stepNumber > firstFailure.get()) {
+                  throw new CancellationException();
+                }
+                try {
+                  command.execute(manipulator);
+                } catch (Exception e) {
+                  firstFailure.accumulateAndGet(stepNumber, Math::min);
+                  throw new CompletionException(e);
+                }
+                return null;
+              }, executor);
+      completions.add(completion);
+    }
+    return completions;
+  }
+}
@@ -0,0 +1,412 @@
+package controller.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import controller.CollectionOfCommands;
+import controller.commands.ImageManipulationCommand;
+import controller.commands.Load;
+import controller.commands.Save;
+import controller.enums.PPMFormat;
+import controller.exceptions.CommandNotFoundException;
+import controller.exceptions.InvalidNumberOfArgumentsException;
+import controller.utils.PPMTokenizer;
+import model.exceptions.ImageNotFoundException;
+import model.manipulator.ImageManipulatorVersion2;
+
+/**
+ * Serves image processing over HTTP. A client posts an image to {@code /process} together with a
+ * pipeline of commands in the query string, and receives the encoded result in the response:
+ *
+ * <pre>
+ * POST /process?input=png&amp;output=jpg&amp;op=brighten+20+image+image&amp;op=blur+image+image
+ * </pre>
+ *
+ * <p>The uploaded image is named {@code image}, every {@code op} parameter is an instruction as
+ * typed in the text mode of the program, applied in order, and the image returned is the one named
+ * by the {@code result} parameter, {@code image} by default. {@code input} gives the format of the
+ * upload and {@code output} that of the result, the format of the upload by default. Commands that
+ * read or write files are refused. Every request runs against an image manipulator of its own, so
+ * requests never see each other's images.
+ *
+ * <p>Each request is handled on a virtual thread where the JVM supports them, and on a pooled
+ * platform thread otherwise, of which there are twice as many as requests processed at the same
+ * time, with a bounded queue of requests waiting for one. Once the queue is full, the thread
+ * accepting connections handles the next request itself, and accepts no more until it is done. As
+ * the operations are bound by the processors, only a limited number of requests upload, decode,
+ * process and encode their images at the same time; the others wait for their turn before their
+ * upload is read, and are answered with 503 if they wait longer than the configured timeout.
+ *
+ * <p>Uploads larger than the configured number of bytes, and images with more pixels than the
+ * configured limit, are refused with 413. The dimensions of an image are read from its header
+ * before it is decoded, so that a small file declaring a huge image is refused as well, and an
+ * upload whose header cannot be read is refused with 400. Errors are answered with a fixed message
+ * for each kind of error, which never includes details such as the names of temporary files.
+ */
+public class ImageHttpService implements Closeable {
+
+  private static final String DEFAULT_IMAGE_NAME = "image";
+
+  private static final String TEMPORARY_FILE_PREFIX = "request";
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private static final int PLATFORM_THREADS_PER_PERMIT = 2;
+
+  private static final int QUEUED_REQUESTS_PER_PERMIT = 16;
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Supplier<? extends ImageManipulatorVersion2> manipulatorFactory;
+  private final Semaphore permits;
+  private final long timeoutMillis;
+  private final long maxRequestBytes;
+  private final long maxPixels;
+
+  /**
+   * Binds the service to the given address. The service does not accept requests until it is
+   * started.
+   *
+   * @param address the address to listen on
+   * @param manipulatorFactory creates the image manipulator of each request
+   * @param concurrentRequests the number of requests that may process images at the same time
+   * @param timeoutMillis how long a request waits for its turn before it is refused
+   * @param maxRequestBytes the largest upload accepted, in bytes
+   * @param maxPixels the largest number of pixels of an uploaded image
+   * @throws IOException if the address cannot be bound
+   * @throws IllegalArgumentException if the number of concurrent requests is not positive
+   */
+  public ImageHttpService(InetSocketAddress address,
+                          Supplier<? extends ImageManipulatorVersion2> manipulatorFactory,
+                          int concurrentRequests, long timeoutMillis, long maxRequestBytes,
+                          long maxPixels)
+          throws IOException, IllegalArgumentException {
+    if (concurrentRequests < 1) {
+      throw new IllegalArgumentException("At least one request must be allowed at a time");
+    }
+    this.manipulatorFactory = manipulatorFactory;
+    this.permits = new Semaphore(concurrentRequests, true);
+    this.timeoutMillis = timeoutMillis;
+    this.maxRequestBytes = maxRequestBytes;
+    this.maxPixels = maxPixels;
+    this.executor = createExecutor(concurrentRequests);
+    this.server = HttpServer.create(address, 0);
+    this.server.setExecutor(executor);
+    this.server.createContext("/process", this::handle);
+  }
+
+  // Returns a virtual thread per task executor if the JVM has one, which is from JDK 21 onwards,
+  // and otherwise a bounded pool of platform threads with a bounded queue.
+  private static ExecutorService createExecutor(int concurrentRequests) {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+              .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      int threads = concurrentRequests * PLATFORM_THREADS_PER_PERMIT;
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+              new ArrayBlockingQueue<>(concurrentRequests * QUEUED_REQUESTS_PER_PERMIT),
+              new ThreadPoolExecutor.CallerRunsPolicy());
+      pool.allowCoreThreadTimeOut(true);
+      return pool;
+    }
+  }
+
+  /**
+   * Starts accepting requests.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Returns the port the service listens on.
+   *
+   * @return the port the service listens on
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    Path upload = null;
+    Path result = null;
+    try {
+      if (!exchange.getRequestMethod().equals("POST")) {
+        sendError(exchange, 405, "Only POST is supported");
+        return;
+      }
+      Map<String, List<String>> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+      String input = getParameter(parameters, "input", null);
+      if (input == null || !input.matches("[A-Za-z0-9]+")) {
+        sendError(exchange, 400, "The format of the image must be given as input");
+        return;
+      }
+      String output = getParameter(parameters, "output", input);
+      if (!output.matches("[A-Za-z0-9]+")) {
+        sendError(exchange, 400, "Invalid output format : " + output);
+        return;
+      }
+      String resultName = getParameter(parameters, "result", DEFAULT_IMAGE_NAME);
+
+      List<ImageManipulationCommand> pipeline;
+      try {
+        pipeline = parsePipeline(parameters.getOrDefault("op", List.of()));
+      } catch (IllegalArgumentException e) {
+        sendError(exchange, 400, e.getMessage());
+        return;
+      }
+
+      if (getContentLength(exchange) > maxRequestBytes) {
+        sendError(exchange, 413, "Uploads are limited to " + maxRequestBytes + " bytes");
+        return;
+      }
+
+      if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, "Too many requests are being processed");
+        return;
+      }
+      try {
+        upload = Files.createTempFile(TEMPORARY_FILE_PREFIX, "." + input);
+        if (!copyUpload(exchange.getRequestBody(), upload)) {
+          sendError(exchange, 413, "Uploads are limited to " + maxRequestBytes + " bytes");
+          return;
+        }
+        long pixels = countPixels(upload, input);
+        if (pixels < 0) {
+          sendError(exchange, 400, "The upload is not an image in the format " + input);
+          return;
+        }
+        if (pixels > maxPixels) {
+          sendError(exchange, 413, "Images are limited to " + maxPixels + " pixels");
+          return;
+        }
+        result = Files.createTempFile(TEMPORARY_FILE_PREFIX, "." + output);
+
+        try (ImageManipulatorVersion2 manipulator = manipulatorFactory.get()) {
+          new Load(new String[]{upload.toString(), DEFAULT_IMAGE_NAME}).execute(manipulator);
+          for (ImageManipulationCommand command : pipeline) {
+            command.execute(manipulator);
+          }
+          new Save(new String[]{result.toString(), resultName}).execute(manipulator);
+        } catch (Exception e) {
+          sendError(exchange, 422, describeFailure(e));
+          return;
+        }
+      } finally {
+        permits.release();
+      }
+
+      exchange.getResponseHeaders().set("Content-Type", getContentType(output));
+      exchange.sendResponseHeaders(200, Files.size(result));
+      try (OutputStream body = exchange.getResponseBody()) {
+        Files.copy(result, body);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      exchange.close();
+      if (upload != null) {
+        Files.deleteIfExists(upload);
+      }
+      if (result != null) {
+        Files.deleteIfExists(result);
+      }
+    }
+  }
+
+  private static long getContentLength(HttpExchange exchange) {
+    String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+    try {
+      return contentLength == null ? -1 : Long.parseLong(contentLength.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  // Copies the upload to the given file, giving up as soon as it exceeds the largest upload
+  // accepted. Returns whether the whole upload was copied.
+  private boolean copyUpload(InputStream body, Path file) throws IOException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    long copied = 0;
+    try (OutputStream out = Files.newOutputStream(file)) {
+      int read;
+      while ((read = body.read(buffer)) >= 0) {
+        copied += read;
+        if (copied > maxRequestBytes) {
+          return false;
+        }
+        out.write(buffer, 0, read);
+      }
+    }
+    return true;
+  }
+
+  // Reads the number of pixels of the uploaded image from its header, without decoding the image.
+  // Returns -1 if the header cannot be read, in which case loading the image reports the error.
+  private static long countPixels(Path file, String format) {
+    if (format.equals("ppm") || format.equals("pgm")) {
+      try (PPMTokenizer tokenizer = new PPMTokenizer(FileChannel.open(file,
+              StandardOpenOption.READ))) {
+        if (PPMFormat.fromMagicNumber(tokenizer.nextWord()) == null) {
+          return -1;
+        }
+        int width = tokenizer.nextInt();
+        int height = tokenizer.nextInt();
+        return width > 0 && height > 0 ? (long) width * height : -1;
+      } catch (IOException | RuntimeException e) {
+        return -1;
+      }
+    }
+    try (ImageInputStream stream = ImageIO.createImageInputStream(file.toFile())) {
+      Iterator<ImageReader> readers = stream == null ? null : ImageIO.getImageReaders(stream);
+      if (readers == null || !readers.hasNext()) {
+        return -1;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(stream, true, true);
+        return (long) reader.getWidth(0) * reader.getHeight(0);
+      } finally {
+        reader.dispose();
+      }
+    } catch (IOException | RuntimeException e) {
+      return -1;
+    }
+  }
+
+  // Returns the message answering a request whose pipeline failed with the given exception.
+  private static String describeFailure(Exception e) {
+    if (e instanceof ImageNotFoundException) {
+      return "An instruction reads an image that does not exist";
+    } else if (e instanceof IOException) {
+      return "The image could not be read or written in the given format";
+    } else if (e instanceof IllegalArgumentException) {
+      return "An instruction has an invalid argument";
+    }
+    return "The image could not be processed";
+  }
+
+  // Creates the commands of the pipeline, refusing unknown commands, commands with the wrong
+  // number of arguments and commands that read or write files.
+  private static List<ImageManipulationCommand> parsePipeline(List<String> instructions)
+          throws IllegalArgumentException {
+    CollectionOfCommands commands = new CollectionOfCommands();
+    List<ImageManipulationCommand> pipeline = new ArrayList<>();
+    for (String instruction : instructions) {
+      String[] tokens = instruction.strip().split(" ");
+      String[] args = new String[tokens.length - 1];
+      System.arraycopy(tokens, 1, args, 0, args.length);
+      try {
+        ImageManipulationCommand command = commands.get(tokens[0]).apply(args);
+        if (!command.getFileNames().isEmpty()) {
+          throw new IllegalArgumentException("Commands accessing files are not allowed : "
+                  + tokens[0]);
+        }
+        pipeline.add(command);
+      } catch (CommandNotFoundException e) {
+        throw new IllegalArgumentException("Unknown command : " + tokens[0]);
+      } catch (InvalidNumberOfArgumentsException e) {
+        throw new IllegalArgumentException("Wrong number of arguments : " + instruction.strip());
+      }
+    }
+    return pipeline;
+  }
+
+  private static Map<String, List<String>> parseQuery(String query) {
+    Map<String, List<String>> parameters = new HashMap<>();
+    if (query == null) {
+      return parameters;
+    }
+    for (String pair : query.split("&")) {
+      int equals = pair.indexOf('=');
+      String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals),
+              StandardCharsets.UTF_8);
+      String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1),
+              StandardCharsets.UTF_8);
+      parameters.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+    }
+    return parameters;
+  }
+
+  private static String getParameter(Map<String, List<String>> parameters, String name,
+                                     String defaultValue) {
+    List<String> values = parameters.get(name);
+    return values == null || values.isEmpty() ? defaultValue : values.get(values.size() - 1);
+  }
+
+  private static String getContentType(String format) {
+    switch (format.toLowerCase()) {
+      case "png":
+        return "image/png";
+      case "jpg":
+      case "jpeg":
+        return "image/jpeg";
+      case "bmp":
+        return "image/bmp";
+      case "ppm":
+        return "image/x-portable-pixmap";
+      case "pgm":
+        return "image/x-portable-graymap";
+      default:
+        return "application/octet-stream";
+    }
+  }
+
+  private void sendError(HttpExchange exchange, int status, String message)
+          throws IOException {
+    // a client still sending its upload would see the connection reset instead of the error, but
+    // no more than the largest upload accepted is read for it
+    InputStream upload = exchange.getRequestBody();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    long remaining = maxRequestBytes;
+    int read;
+    while (remaining > 0
+            && (read = upload.read(buffer, 0, (int) Math.min(buffer.length, remaining))) >= 0) {
+      remaining -= read;
+    }
+    byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  /**
+   * Stops accepting requests, waiting up to a second for the requests being handled to finish.
+   */
+  @Override
+  public void close() {
+    server.stop(1);
+    executor.shutdown();
+  }
+}
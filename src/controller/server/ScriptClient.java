@@ -0,0 +1,77 @@
+package controller.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * A thin client of a {@link ScriptServer}, which sends the instructions it reads to a session on
+ * the server and copies the output of the session to its own output. The session resolves file
+ * names against the working directory of the client, so running a script through the client has
+ * the same effect as running it in a program of its own, without starting a new JVM to execute it.
+ */
+public class ScriptClient {
+
+  private final int port;
+
+  /**
+   * Creates a client of the server listening on the given port of the loopback interface.
+   *
+   * @param port the port the server listens on
+   */
+  public ScriptClient(int port) {
+    this.port = port;
+  }
+
+  /**
+   * Opens a session, sends it every line read from the given input and copies the output of the
+   * session to the given output until the server ends the session.
+   *
+   * @param in  the source of the instructions, as typed in the text mode of the program
+   * @param out the sink to which the output of the session is copied
+   * @throws IOException if the server cannot be reached or the connection fails
+   */
+  public void run(Reader in, OutputStream out) throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      Writer toServer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+      toServer.write(Paths.get("").toAbsolutePath() + "\n");
+      toServer.flush();
+
+      // interactive input only ends once the user has seen the output of the earlier
+      // instructions, so the instructions are sent while the output is being copied
+      Thread sender = new Thread(() -> send(in, toServer, socket), "instructions");
+      sender.setDaemon(true);
+      sender.start();
+
+      InputStream fromServer = socket.getInputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = fromServer.read(buffer)) >= 0) {
+        out.write(buffer, 0, read);
+        out.flush();
+      }
+    }
+  }
+
+  private static void send(Reader in, Writer toServer, Socket socket) {
+    try {
+      BufferedReader lines = new BufferedReader(in);
+      String line;
+      while ((line = lines.readLine()) != null) {
+        toServer.write(line + "\n");
+        toServer.flush();
+      }
+      socket.shutdownOutput();
+    } catch (IOException e) {
+      // the server has ended the session
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package controller.server;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import controller.controllers.Controller;
+import controller.controllers.ControllerImplVersion2;
+import controller.metrics.CommandMetrics;
+import controller.utils.Messages;
+import model.manipulator.ImageManipulatorVersion2;
+
+/**
+ * Serves image manipulation sessions over a socket on the loopback interface, so that scripts are
+ * run by a JVM that has already started and compiled its hot loops instead of by a new one each
+ * time. Every connection is a session of its own, with its own images and command metrics, run by
+ * a {@link ControllerImplVersion2} on a thread of its own. The images of a session are dropped, and
+ * its storage closed, when the session ends. Only so many sessions run at the same time; a client
+ * connecting while all of them are running is told so and disconnected.
+ *
+ * <p>The protocol is line based UTF-8 text. The first line sent by a client is the directory
+ * against which the file names of its session are resolved, usually the working directory of the
+ * client. Every following line is an instruction, exactly as typed in the text mode of the program,
+ * and the output of the session is streamed back as it is produced. The session ends with the quit
+ * instruction, or when the client closes its side of the connection, after which the server closes
+ * the connection.
+ *
+ * <p>Any local user can connect to the server, and sessions can read and write any file the server
+ * can, so the server should only be run where all local users are trusted.
+ */
+public class ScriptServer implements Closeable {
+
+  private final ServerSocket serverSocket;
+  private final Supplier<? extends ImageManipulatorVersion2> sessionFactory;
+  private final ExecutorService sessions;
+  private final AtomicInteger sessionCount;
+
+  /**
+   * Binds the server to the given port of the loopback interface.
+   *
+   * @param port the port to listen on, or 0 for any free port
+   * @param sessionFactory creates the image manipulator of each new session
+   * @param maximumSessions the number of sessions that can run at the same time
+   * @throws IOException if the port cannot be bound
+   * @throws IllegalArgumentException if the number of sessions is not positive
+   */
+  public ScriptServer(int port, Supplier<? extends ImageManipulatorVersion2> sessionFactory,
+                      int maximumSessions) throws IOException, IllegalArgumentException {
+    if (maximumSessions < 1) {
+      throw new IllegalArgumentException("The number of sessions must be at least 1");
+    }
+    this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    this.sessionFactory = sessionFactory;
+    this.sessionCount = new AtomicInteger();
+    // sessions are handed straight to a thread, and refused once every thread is running one
+    this.sessions = new ThreadPoolExecutor(0, maximumSessions, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> {
+              Thread thread = new Thread(runnable, "session");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return the port the server listens on
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Accepts connections and runs their sessions until the server is closed.
+   *
+   * @throws IOException if a connection could not be accepted
+   */
+  public void serve() throws IOException {
+    while (true) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (SocketException e) {
+        if (serverSocket.isClosed()) {
+          return;
+        }
+        throw e;
+      }
+      int sessionNumber = sessionCount.incrementAndGet();
+      try {
+        sessions.execute(() -> runSession(socket, sessionNumber));
+      } catch (RejectedExecutionException e) {
+        refuse(socket);
+      }
+    }
+  }
+
+  private static void refuse(Socket socket) {
+    try (socket) {
+      socket.getOutputStream().write(Messages.SERVER_BUSY.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      // the client is not told why, but is disconnected all the same
+    }
+  }
+
+  private void runSession(Socket socket, int sessionNumber) {
+    try (socket) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+              StandardCharsets.UTF_8));
+      PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+      String directory = in.readLine();
+      if (directory == null) {
+        return;
+      }
+      File workingDirectory = new File(directory);
+      if (!workingDirectory.isDirectory()) {
+        out.append(Messages.FILE_NOT_FOUND_ERROR).append(directory).append("\n");
+        return;
+      }
+      try (ImageManipulatorVersion2 manipulator = sessionFactory.get()) {
+        Controller controller = new ControllerImplVersion2(manipulator, in, out,
+                workingDirectory, CommandMetrics.forSession(sessionNumber));
+        controller.run();
+      }
+    } catch (IOException | NoSuchElementException e) {
+      // the client has gone away without quitting, which ends its session all the same
+    }
+  }
+
+  /**
+   * Stops accepting connections. Sessions already running are left to finish.
+   *
+   * @throws IOException if the server socket could not be closed
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    sessions.shutdown();
+  }
+}
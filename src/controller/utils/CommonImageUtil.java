@@ -1,9 +1,11 @@
 package controller.utils;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 
 import model.exceptions.ImageNotFoundException;
 import model.image.Image;
+import model.image.RowBands;
 
 /**
  * The CommonImageUtil class provides methods to perform common image processing tasks such as
@@ -30,19 +32,14 @@ public class CommonImageUtil {
             ? new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB) :
             new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
 
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        int pixel;
-        int red = image.getPixelValue(row, col, 0);
-        int green = image.getPixelValue(row, col, 1);
-        int blue = image.getPixelValue(row, col, 2);
-        if (numChannels == 4) {
-          int alpha = image.getPixelValue(row, col, 3);
-          pixel = (alpha << 24) | (red << 16) | (green << 8) | blue;
-        } else {
-          pixel = (red << 16) | (green << 8) | blue;
-        }
-        bufferedImage.setRGB(col, row, pixel);
+    // the packed rows are written straight into the data buffer, which holds exactly the values
+    // setRGB would store for these two types
+    int[] pixels = ((DataBufferInt) bufferedImage.getRaster().getDataBuffer()).getData();
+    RowBands.forEach(height, width, (startRow, endRow) ->
+            image.getPackedRows(startRow, endRow, pixels, startRow * width));
+    if (numChannels != 4) {
+      for (int i = 0; i < pixels.length; i++) {
+        pixels[i] &= 0xffffff;
       }
     }
     return bufferedImage;
@@ -63,13 +60,20 @@ public class CommonImageUtil {
     int height = image.getHeight();
     int width = image.getWidth();
 
+    int[] redValues = new int[width];
+    int[] greenValues = new int[width];
+    int[] blueValues = new int[width];
+
     for (int row = 0; row < height; row++) {
+      image.getRowValues(row, 0, redValues, 0);
+      image.getRowValues(row, 1, greenValues, 0);
+      image.getRowValues(row, 2, blueValues, 0);
       for (int col = 0; col < width; col++) {
-        int red = image.getPixelValue(row, col, 0);
+        int red = redValues[col];
         histogramMatrix[0][red]++;
-        int green = image.getPixelValue(row, col, 1);
+        int green = greenValues[col];
         histogramMatrix[1][green]++;
-        int blue = image.getPixelValue(row, col, 2);
+        int blue = blueValues[col];
         histogramMatrix[2][blue]++;
         int avg = (int) ((red + green + blue) / 3.0);
         histogramMatrix[3][avg]++;
@@ -1,29 +1,42 @@
 package controller.utils;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Paths;
 
 import javax.imageio.ImageIO;
 
 import model.image.Image;
 import model.exceptions.ImageNotFoundException;
 import model.image.ImageVersion2Impl;
+import model.image.PixelStorage;
 
 /**
  * This class contains utility methods to load an image from a file and save an image to a file.
- * These operations are supported for multiple conventional image file formats.
+ * These operations are supported for multiple conventional image file formats. The samples of
+ * images in the common interleaved byte and packed int layouts are copied straight out of their
+ * data buffers, and images in any other layout are converted through their color model.
  */
 public class GenericImageUtil implements ImageUtil {
 
   @Override
   public void saveImageToFile(Image image, String imagePath) throws IOException {
-    String extension = imagePath.split("[.]")[1];
+    ImageFileEvent event = new ImageFileEvent();
+    event.begin();
+    String fileName = Paths.get(imagePath).getFileName().toString();
+    String extension = fileName.substring(fileName.lastIndexOf('.') + 1);
     try {
       BufferedImage bufferedImage = CommonImageUtil.getBufferedImageFromImage(image);
       File output = new File(imagePath);
       ImageIO.write(bufferedImage, extension, output);
+      event.report("save", extension, imagePath, image);
     } catch (IOException e) {
       throw new IOException(Messages.IMAGE_SAVE_FAILED + image + ", " + e.getMessage());
     } catch (ImageNotFoundException e) {
@@ -33,33 +46,103 @@ public class GenericImageUtil implements ImageUtil {
 
   @Override
   public Image getImageFromFile(String filename) throws IOException {
+    ImageFileEvent event = new ImageFileEvent();
+    event.begin();
     try {
-      File imageFile = new File(filename);
-      FileInputStream imageStream = new FileInputStream(imageFile);
-      BufferedImage image = ImageIO.read(imageStream);
+      BufferedImage image;
+      try (FileInputStream imageStream = new FileInputStream(new File(filename))) {
+        image = ImageIO.read(imageStream);
+      }
+      if (image == null) {
+        throw new IOException("not an image in a supported format");
+      }
 
       int height = image.getHeight();
       int width = image.getWidth();
       int numChannels = image.getAlphaRaster() == null ? 3 : 4;
-      int[][][] imageMatrix = new int[height][width][numChannels];
-
-      for (int row = 0; row < height; row++) {
-        for (int col = 0; col < width; col++) {
-          int pixel = image.getRGB(col, row);
-          imageMatrix[row][col][0] = (pixel >> 16) & 0xff;
-          imageMatrix[row][col][1] = (pixel >> 8) & 0xff;
-          imageMatrix[row][col][2] = pixel & 0xff;
-          if (numChannels == 4) {
-            imageMatrix[row][col][3] = (pixel >> 24) & 0xff;
-          }
+      PixelStorage storage = PixelStorage.allocate(height, width, numChannels, 255);
+      if (!readDataBuffer(image, storage)) {
+        int[] pixels = new int[width];
+        int[][] samples = new int[numChannels][width];
+        for (int row = 0; row < height; row++) {
+          image.getRGB(0, row, width, 1, pixels, 0, width);
+          unpackRow(pixels, 0, row, storage, samples);
         }
       }
 
-      return new ImageVersion2Impl.ImageVersion2ImplBuilder().setHeight(height).setWidth(width)
-              .setMatrix(imageMatrix).setNumberOfChannels(numChannels).build();
+      Image loadedImage = new ImageVersion2Impl.ImageVersion2ImplBuilder().setHeight(height)
+              .setWidth(width).setPixelStorage(storage).setNumberOfChannels(numChannels).build();
+      event.report("load", filename.substring(filename.lastIndexOf('.') + 1), filename,
+              loadedImage);
+      return loadedImage;
 
     } catch (IOException e) {
       throw new IOException(Messages.IMAGE_READ_FAILED + e.getMessage());
     }
   }
+
+  // Copies the samples of the image straight out of its data buffer if it uses one of the common
+  // layouts, in which the samples are the sRGB values. Returns false for any other layout.
+  private static boolean readDataBuffer(BufferedImage image, PixelStorage storage) {
+    WritableRaster raster = image.getRaster();
+    if (raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+            || raster.getDataBuffer().getOffset() != 0) {
+      return false;
+    }
+    int height = storage.getHeight();
+    int width = storage.getWidth();
+    int channels = storage.getNumberOfChannels();
+    int[][] samples = new int[channels][width];
+
+    switch (image.getType()) {
+      case BufferedImage.TYPE_3BYTE_BGR:
+      case BufferedImage.TYPE_4BYTE_ABGR:
+        // the bands of the raster are red, green, blue and alpha, interleaved at these offsets
+        ComponentSampleModel componentModel = (ComponentSampleModel) raster.getSampleModel();
+        byte[] bytes = ((DataBufferByte) raster.getDataBuffer()).getData();
+        int[] bandOffsets = componentModel.getBandOffsets();
+        int pixelStride = componentModel.getPixelStride();
+        int scanlineStride = componentModel.getScanlineStride();
+        for (int row = 0; row < height; row++) {
+          for (int channel = 0; channel < channels; channel++) {
+            int position = row * scanlineStride + bandOffsets[channel];
+            for (int col = 0; col < width; col++, position += pixelStride) {
+              samples[channel][col] = bytes[position] & 0xff;
+            }
+            storage.setSamples(channel, (long) row * width, samples[channel], 0, width);
+          }
+        }
+        return true;
+      case BufferedImage.TYPE_INT_RGB:
+      case BufferedImage.TYPE_INT_ARGB:
+        SinglePixelPackedSampleModel packedModel =
+                (SinglePixelPackedSampleModel) raster.getSampleModel();
+        int[] pixels = ((DataBufferInt) raster.getDataBuffer()).getData();
+        for (int row = 0; row < height; row++) {
+          unpackRow(pixels, row * packedModel.getScanlineStride(), row, storage, samples);
+        }
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  // Splits a row of pixels packed as ARGB into the channels of the storage.
+  private static void unpackRow(int[] pixels, int offset, int row, PixelStorage storage,
+                                int[][] samples) {
+    int width = storage.getWidth();
+    int channels = storage.getNumberOfChannels();
+    for (int col = 0; col < width; col++) {
+      int pixel = pixels[offset + col];
+      samples[0][col] = (pixel >> 16) & 0xff;
+      samples[1][col] = (pixel >> 8) & 0xff;
+      samples[2][col] = pixel & 0xff;
+      if (channels == 4) {
+        samples[3][col] = (pixel >> 24) & 0xff;
+      }
+    }
+    for (int channel = 0; channel < channels; channel++) {
+      storage.setSamples(channel, (long) row * width, samples[channel], 0, width);
+    }
+  }
 }
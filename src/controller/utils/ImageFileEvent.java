@@ -0,0 +1,82 @@
+package controller.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import model.image.Image;
+
+/**
+ * A Java Flight Recorder event reporting an image loaded from or saved to a file, with the
+ * dimensions of the image and the size of the file. The event costs next to nothing unless a
+ * recording that enables it is running.
+ */
+@Name("imagemanipulator.ImageFile")
+@Label("Image File")
+@Category("Image Manipulator")
+@Description("An image loaded from or saved to a file")
+@StackTrace(false)
+public class ImageFileEvent extends Event {
+
+  @Label("Operation")
+  @Description("Either load or save")
+  private String operation;
+
+  @Label("Format")
+  @Description("The PPM variant of the file, or its extension for other formats")
+  private String format;
+
+  @Label("Path")
+  private String path;
+
+  @Label("Height")
+  private int height;
+
+  @Label("Width")
+  private int width;
+
+  @Label("Channels")
+  private int channels;
+
+  @Label("Bytes Processed")
+  @Description("The size of the file")
+  @DataAmount
+  private long bytesProcessed;
+
+  /**
+   * Ends the event and commits it with the given image and file, if the event is enabled and
+   * lasted longer than its threshold.
+   *
+   * @param operation the name of the operation, either load or save
+   * @param format the PPM variant of the file, or its extension for other formats
+   * @param path the path of the file
+   * @param image the image loaded or saved
+   */
+  public void report(String operation, String format, String path, Image image) {
+    end();
+    if (!shouldCommit()) {
+      return;
+    }
+    this.operation = operation;
+    this.format = format;
+    this.path = path;
+    this.height = image.getHeight();
+    this.width = image.getWidth();
+    this.channels = image.getNumberOfChannels();
+    try {
+      this.bytesProcessed = Files.size(Paths.get(path));
+    } catch (IOException e) {
+      // the file has been moved or removed since; the size is left unknown
+      this.bytesProcessed = -1;
+    }
+    commit();
+  }
+}
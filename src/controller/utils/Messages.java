@@ -19,6 +19,9 @@ public class Messages {
 
   public static final String FINISHED_RUNNING_SCRIPT = "Finished running script : ";
 
+  public static final String SKIPPED_COMMANDS = "Commands skipped as their results are never "
+          + "saved : ";
+
   public static final String INVALID_BRIGHTENING_AMOUNT = "Invalid value for brightening amount\n";
 
   public static final String IMAGE_NOT_FOUND = "Image not found\n";
@@ -33,8 +36,8 @@ public class Messages {
 
   public static final String CORRUPTED_FILE = "Corrupted file : could not be read\n";
 
-  public static final String INVALID_PPM_FILE = "Invalid PPM file: plain RAW file should begin "
-          + "with P3\n";
+  public static final String INVALID_PPM_FILE = "Invalid PPM file: file should begin with P3, P5 "
+          + "or P6\n";
 
   public static final String INVALID_SYNTAX = "Wrong command entered\n";
 
@@ -61,4 +64,10 @@ public class Messages {
   public static final String ARGUMENTS_NOT_PROVIDED = "Arguments not provided";
 
   public static final String INVALID_MOSAIC_SEED = "Invalid value for seed of mosaic\n";
+
+  public static final String IMAGE_STORAGE_STATISTICS = "Image storage : ";
+
+  public static final String RESULT_CACHE_STATISTICS = "Result cache : ";
+
+  public static final String SERVER_BUSY = "Too many sessions are running, try again later\n";
 }
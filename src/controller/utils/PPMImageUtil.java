@@ -1 +1 @@
-package controller.utils;import java.io.BufferedWriter;import java.io.FileWriter;import java.io.IOException;import java.util.Scanner;import java.io.FileInputStream;import model.image.Image;import model.image.ImageImpl;/** * This class contains utility methods to load an image from a PPM file and save an image to a PPM * file. */public class PPMImageUtil implements ImageUtil {  @Override  public void saveImageToFile(Image image, String imagePath) throws IOException {    BufferedWriter writer = new BufferedWriter(new FileWriter(imagePath));    writer.write("P3");    writer.newLine();    writer.write(image.getWidth() + " " + image.getHeight());    writer.newLine();    writer.write(Integer.toString(image.getMaximumPixelValue()));    writer.newLine();    for (int row = 0; row < image.getHeight(); row++) {      for (int col = 0; col < image.getWidth(); col++) {        for (int channel = 0; channel < image.getNumberOfChannels(); channel++) {          writer.write(Integer.toString(image.getPixelValue(row, col, channel)));          writer.newLine();        }      }    }    writer.close();  }  @Override  public Image getImageFromFile(String filename) throws IOException {    Scanner scanner;    scanner = new Scanner(new FileInputStream(filename));    StringBuilder builder = new StringBuilder();    while (scanner.hasNextLine()) {      String line = scanner.nextLine();      if (line.charAt(0) != '#') {        builder.append(line).append(System.lineSeparator());      }    }    scanner = new Scanner(builder.toString());    String token = scanner.next();    if (!token.equals("P3")) {      throw new IOException(Messages.INVALID_PPM_FILE);    }    try {      int width = scanner.nextInt();      int height = scanner.nextInt();      int maxValue = scanner.nextInt();      int[][][] matrix = new int[height][width][3];      for (int row = 0; row < height; row++) {        for (int col = 0; col < width; col++) {          for (int channel = 0; channel < 3; channel++) {            matrix[row][col][channel] = scanner.nextInt();          }        }      }      return new ImageImpl.ImageImplBuilder().setHeight(height).setWidth(width)              .setMaximumPixelValue(maxValue).setMatrix(matrix).build();    }    catch (Exception e) {      throw new IOException(Messages.CORRUPTED_FILE);    }  }}
\ No newline at end of file
+package controller.utils;import java.io.IOException;import java.nio.ByteBuffer;import java.nio.channels.FileChannel;import java.nio.charset.StandardCharsets;import java.nio.file.AtomicMoveNotSupportedException;import java.nio.file.Files;import java.nio.file.Path;import java.nio.file.Paths;import java.nio.file.StandardCopyOption;import java.nio.file.StandardOpenOption;import controller.enums.PPMFormat;import model.image.Image;import model.image.ImageImpl;import model.image.MappedPixelStorage;import model.image.PixelStorage;/** * This class contains utility methods to load an image from a PPM or PGM file and save an image to * such a file. Files in the plain P3 format and in the raw P5 (grey) and P6 (RGB) formats, with * maximum values of up to 65535, can be loaded. Images are saved in the format given when the * utility is created, which is P3 by default. * * <p>The pixel data of raw files of at least 64 MB is mapped into memory instead of being read, * so that such files load in constant time and are not limited by the size of the heap. The * threshold can be changed with the {@code imagemanipulator.mapped.threshold} system property. * Images are saved to a temporary file that then replaces the target file, so that an image * mapped from the target file remains intact. */public class PPMImageUtil implements ImageUtil {  // Raw pixel data is transferred in chunks of whole rows of about this many bytes.  private static final int CHUNK_SIZE = 1 << 20;  // Raw pixel data of at least this many bytes is mapped rather than read.  private static final long MAPPING_THRESHOLD = Long.getLong("imagemanipulator.mapped.threshold",          1L << 26);  private final PPMFormat format;  /**   * Creates a utility saving images in the plain P3 format.   */  public PPMImageUtil() {    this(PPMFormat.PLAIN_RGB);  }  /**   * Creates a utility saving images in the given format. A grey P5 file holds the first channel   * of the image, which is the grey value of images produced by the greyscale operations.   *   * @param format the format in which images are saved   */  public PPMImageUtil(PPMFormat format) {    this.format = format;  }  @Override  public void saveImageToFile(Image image, String imagePath) throws IOException {    ImageFileEvent event = new ImageFileEvent();    event.begin();    // truncating the target file would corrupt any image mapped from it    Path target = Paths.get(imagePath);    Path temporary = target.resolveSibling(target.getFileName() + "." + System.nanoTime()            + ".tmp");    try {      try (FileChannel fileChannel = FileChannel.open(temporary, StandardOpenOption.WRITE,              StandardOpenOption.CREATE_NEW)) {        if (format.isBinary()) {          writeRawImage(image, fileChannel);        } else {          new PlainPPMWriter(image).write(fileChannel);        }      }      try {        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,                StandardCopyOption.ATOMIC_MOVE);      } catch (AtomicMoveNotSupportedException e) {        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);      }      event.report("save", format.name(), imagePath, image);    } finally {      Files.deleteIfExists(temporary);    }  }  private void writeRawImage(Image image, FileChannel fileChannel) throws IOException {    int height = image.getHeight();    int width = image.getWidth();    int maxValue = image.getMaximumPixelValue();    int channels = format.getNumberOfChannels();    int bytesPerSample = maxValue > 255 ? 2 : 1;    int rowBytes = width * channels * bytesPerSample;    int rowsPerChunk = Math.max(1, CHUNK_SIZE / rowBytes);    String header = format.getMagicNumber() + "\n" + width + " " + height + "\n" + maxValue + "\n";    writeFully(fileChannel, ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII)));    ByteBuffer chunk = ByteBuffer.allocateDirect(rowsPerChunk * rowBytes);    int[][] samples = new int[channels][width];    for (int row = 0; row < height; row++) {      for (int channel = 0; channel < channels; channel++) {        image.getRowValues(row, channel, samples[channel], 0);      }      for (int col = 0; col < width; col++) {        for (int channel = 0; channel < channels; channel++) {          if (bytesPerSample == 1) {            chunk.put((byte) samples[channel][col]);          } else {            chunk.putShort((short) samples[channel][col]);          }        }      }      if (!chunk.hasRemaining() || row == height - 1) {        chunk.flip();        writeFully(fileChannel, chunk);        chunk.clear();      }    }  }  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {    while (buffer.hasRemaining()) {      channel.write(buffer);    }  }  @Override  public Image getImageFromFile(String filename) throws IOException {    ImageFileEvent event = new ImageFileEvent();    event.begin();    Path file = Paths.get(filename);    try (PPMTokenizer tokenizer = new PPMTokenizer(FileChannel.open(file,            StandardOpenOption.READ))) {      PPMFormat fileFormat = PPMFormat.fromMagicNumber(tokenizer.nextWord());      if (fileFormat == null) {        throw new IOException(Messages.INVALID_PPM_FILE);      }      try {        int width = tokenizer.nextInt();        int height = tokenizer.nextInt();        int maxValue = tokenizer.nextInt();        if (maxValue == 0) {          throw new IOException(Messages.CORRUPTED_FILE);        }        int channels = fileFormat.getNumberOfChannels();        long rawBytes = (long) height * width * channels * (maxValue > 255 ? 2 : 1);        PixelStorage storage;        if (fileFormat.isBinary() && rawBytes >= MAPPING_THRESHOLD) {          // the samples stay in the file and are not checked against the maximum value          tokenizer.skipSingleWhitespace();          storage = MappedPixelStorage.open(file, tokenizer.getOffset(), height, width, channels,                  maxValue);        } else {          // the samples are read straight into the storage, one row of each channel at a time          storage = PixelStorage.allocate(height, width, channels, maxValue);          if (fileFormat.isBinary()) {            readRawSamples(tokenizer, storage, maxValue);          } else {            readPlainSamples(tokenizer, storage, maxValue);          }        }        if (channels == 1) {          // grey images have the grey value in every channel, which share a single plane          storage = storage.selectChannels(0, 0, 0);        }        Image image = new ImageImpl.ImageImplBuilder().setHeight(height).setWidth(width)                .setMaximumPixelValue(maxValue).setPixelStorage(storage).build();        event.report("load", fileFormat.name(), filename, image);        return image;      }      catch (IllegalArgumentException e) {        // dimensions or a maximum value that no image can have        throw new IOException(Messages.CORRUPTED_FILE);      }    }  }  private static void readPlainSamples(PPMTokenizer tokenizer, PixelStorage storage,                                       int maxValue) throws IOException {    int height = storage.getHeight();    int width = storage.getWidth();    int channels = storage.getNumberOfChannels();    int[][] samples = new int[channels][width];    for (int row = 0; row < height; row++) {      for (int col = 0; col < width; col++) {        for (int channel = 0; channel < channels; channel++) {          int value = tokenizer.nextInt();          if (value > maxValue) {            throw new IOException(Messages.CORRUPTED_FILE);          }          samples[channel][col] = value;        }      }      for (int channel = 0; channel < channels; channel++) {        storage.setSamples(channel, (long) row * width, samples[channel], 0, width);      }    }  }  private static void readRawSamples(PPMTokenizer tokenizer, PixelStorage storage, int maxValue)          throws IOException {    tokenizer.skipSingleWhitespace();    int height = storage.getHeight();    int width = storage.getWidth();    int channels = storage.getNumberOfChannels();    int bytesPerSample = maxValue > 255 ? 2 : 1;    int rowBytes = width * channels * bytesPerSample;    int rowsPerChunk = Math.max(1, CHUNK_SIZE / rowBytes);    ByteBuffer chunk = ByteBuffer.allocate(rowsPerChunk * rowBytes);    int[][] samples = new int[channels][width];    for (int startRow = 0; startRow < height; startRow += rowsPerChunk) {      int rows = Math.min(rowsPerChunk, height - startRow);      chunk.clear().limit(rows * rowBytes);      tokenizer.readFully(chunk);      chunk.flip();      for (int row = startRow; row < startRow + rows; row++) {        for (int col = 0; col < width; col++) {          for (int channel = 0; channel < channels; channel++) {            int value = bytesPerSample == 1 ? chunk.get() & 0xff : chunk.getShort() & 0xffff;            if (value > maxValue) {              throw new IOException(Messages.CORRUPTED_FILE);            }            samples[channel][col] = value;          }        }        for (int channel = 0; channel < channels; channel++) {          storage.setSamples(channel, (long) row * width, samples[channel], 0, width);        }      }    }  }}
\ No newline at end of file
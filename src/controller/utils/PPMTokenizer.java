@@ -0,0 +1,168 @@
+package controller.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * This class splits the contents of a PPM file into the tokens of its header and of its plain
+ * pixel data. It works directly on the bytes read from a channel into a reusable buffer, skips
+ * comments wherever they appear and parses integers without creating any strings. The binary
+ * pixel data following the header of a raw file can be read in bulk.
+ */
+public class PPMTokenizer implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final ReadableByteChannel channel;
+  private final ByteBuffer buffer;
+  private final byte[] bytes;
+  private int position;
+  private int limit;
+  private long bytesRead;
+
+  /**
+   * Creates a tokenizer reading from the given channel.
+   *
+   * @param channel the channel holding the contents of the file
+   */
+  public PPMTokenizer(ReadableByteChannel channel) {
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    this.bytes = buffer.array();
+  }
+
+  // Refills the buffer once every byte in it has been consumed. Returns false at the end of the
+  // channel.
+  private boolean fill() throws IOException {
+    if (position < limit) {
+      return true;
+    }
+    buffer.clear();
+    int read;
+    do {
+      read = channel.read(buffer);
+    } while (read == 0);
+    position = 0;
+    limit = Math.max(read, 0);
+    bytesRead += limit;
+    return read > 0;
+  }
+
+  private static boolean isWhitespace(int b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0b;
+  }
+
+  // Moves to the first byte of the next token, skipping whitespace and comments, which run from a
+  // '#' to the end of the line. Returns false at the end of the channel.
+  private boolean skipToToken() throws IOException {
+    while (fill()) {
+      int b = bytes[position];
+      if (b == '#') {
+        while (fill() && bytes[position] != '\n' && bytes[position] != '\r') {
+          position++;
+        }
+      } else if (isWhitespace(b)) {
+        position++;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the next token as a string. This is meant for the magic number of the file only.
+   *
+   * @return the next token
+   * @throws IOException if there are no more tokens
+   */
+  public String nextWord() throws IOException {
+    if (!skipToToken()) {
+      throw new IOException(Messages.CORRUPTED_FILE);
+    }
+    StringBuilder word = new StringBuilder();
+    while (fill() && !isWhitespace(bytes[position]) && bytes[position] != '#') {
+      word.append((char) (bytes[position++] & 0xff));
+    }
+    return word.toString();
+  }
+
+  /**
+   * Parses the next token as a non-negative integer.
+   *
+   * @return the value of the next token
+   * @throws IOException if there are no more tokens, or the next token is not a non-negative
+   *                     integer that fits in an int
+   */
+  public int nextInt() throws IOException {
+    if (!skipToToken()) {
+      throw new IOException(Messages.CORRUPTED_FILE);
+    }
+    int value = 0;
+    while (fill()) {
+      int b = bytes[position];
+      if (b >= '0' && b <= '9') {
+        if (value > (Integer.MAX_VALUE - (b - '0')) / 10) {
+          throw new IOException(Messages.CORRUPTED_FILE);
+        }
+        value = value * 10 + (b - '0');
+        position++;
+      } else if (isWhitespace(b) || b == '#') {
+        break;
+      } else {
+        throw new IOException(Messages.CORRUPTED_FILE);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Consumes the single whitespace byte that separates the header of a raw file from its pixel
+   * data.
+   *
+   * @throws IOException if the next byte is not a whitespace byte
+   */
+  public void skipSingleWhitespace() throws IOException {
+    if (!fill() || !isWhitespace(bytes[position])) {
+      throw new IOException(Messages.CORRUPTED_FILE);
+    }
+    position++;
+  }
+
+  /**
+   * Reads bytes into the given buffer until it is full, taking the bytes already buffered by this
+   * tokenizer first and then reading straight from the channel.
+   *
+   * @param destination the buffer to be filled
+   * @throws IOException if the channel ends before the buffer is full
+   */
+  public void readFully(ByteBuffer destination) throws IOException {
+    int buffered = Math.min(limit - position, destination.remaining());
+    destination.put(bytes, position, buffered);
+    position += buffered;
+    while (destination.hasRemaining()) {
+      int read = channel.read(destination);
+      if (read < 0) {
+        throw new IOException(Messages.CORRUPTED_FILE);
+      }
+      bytesRead += read;
+    }
+  }
+
+  /**
+   * Returns the number of bytes of the channel consumed so far, which is the position in the file
+   * of the next byte to be read.
+   *
+   * @return the number of bytes consumed
+   */
+  public long getOffset() {
+    return bytesRead - (limit - position);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,161 @@
+package controller.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import model.image.Image;
+import model.image.RowBands;
+
+/**
+ * This class writes images in the plain P3 format. The decimal digits of the samples are formatted
+ * straight into byte buffers, each row of the image starts on a new line and lines are wrapped
+ * before they exceed 70 characters. Large images are split into chunks of rows that are encoded in
+ * parallel on the pool used for the image operations, and written to the channel in order.
+ */
+public class PlainPPMWriter {
+
+  private static final int MAXIMUM_LINE_LENGTH = 70;
+
+  // Rows are encoded in chunks of at most about this many bytes.
+  private static final int CHUNK_SIZE = 1 << 20;
+
+  // A sample takes at most 5 digits and a separator.
+  private static final int MAXIMUM_SAMPLE_BYTES = 6;
+
+  private final Image image;
+  private final int height;
+  private final int width;
+  private final int rowsPerChunk;
+  private final int numberOfChunks;
+  private final Queue<byte[]> freeBuffers;
+
+  /**
+   * Prepares to write the given image.
+   *
+   * @param image the image to be written
+   */
+  public PlainPPMWriter(Image image) {
+    this.image = image;
+    this.height = image.getHeight();
+    this.width = image.getWidth();
+    long maximumRowBytes = (long) width * 3 * MAXIMUM_SAMPLE_BYTES;
+    this.rowsPerChunk = (int) Math.max(1, Math.min(height, CHUNK_SIZE / maximumRowBytes));
+    this.numberOfChunks = (height + rowsPerChunk - 1) / rowsPerChunk;
+    this.freeBuffers = new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * Writes the image to the given channel.
+   *
+   * @param channel the channel to which the image is written
+   * @throws IOException if the image could not be written
+   */
+  public void write(WritableByteChannel channel) throws IOException {
+    String header = "P3\n" + width + " " + height + "\n" + image.getMaximumPixelValue() + "\n";
+    writeFully(channel, ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII)));
+
+    ForkJoinPool pool = RowBands.getPool();
+    if (pool.getParallelism() == 1 || numberOfChunks == 1) {
+      for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+        writeChunk(channel, encodeChunk(chunk));
+      }
+      return;
+    }
+
+    // keep a bounded number of chunks encoding ahead of the one being written
+    int chunksInFlight = 2 * pool.getParallelism();
+    Queue<Future<ByteBuffer>> pending = new ArrayDeque<>();
+    try {
+      for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+        int chunkNumber = chunk;
+        pending.add(pool.submit(() -> encodeChunk(chunkNumber)));
+        if (pending.size() >= chunksInFlight) {
+          writeChunk(channel, pending.remove().get());
+        }
+      }
+      while (!pending.isEmpty()) {
+        writeChunk(channel, pending.remove().get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(Messages.IMAGE_SAVE_FAILED + e.getMessage());
+    } catch (ExecutionException e) {
+      throw new IOException(Messages.IMAGE_SAVE_FAILED + e.getCause(), e.getCause());
+    } finally {
+      for (Future<ByteBuffer> future : pending) {
+        future.cancel(false);
+      }
+    }
+  }
+
+  private ByteBuffer encodeChunk(int chunk) {
+    int startRow = chunk * rowsPerChunk;
+    int endRow = Math.min(height, startRow + rowsPerChunk);
+    byte[] buffer = freeBuffers.poll();
+    if (buffer == null) {
+      buffer = new byte[rowsPerChunk * width * 3 * MAXIMUM_SAMPLE_BYTES];
+    }
+    int numberOfChannels = image.getNumberOfChannels();
+    int[][] samples = new int[3][width];
+    int position = 0;
+
+    for (int row = startRow; row < endRow; row++) {
+      // images with fewer than three channels are written as grey
+      for (int channel = 0; channel < 3; channel++) {
+        image.getRowValues(row, channel < numberOfChannels ? channel : 0, samples[channel], 0);
+      }
+      int lineStart = position;
+      for (int col = 0; col < width; col++) {
+        for (int channel = 0; channel < 3; channel++) {
+          int value = samples[channel][col];
+          int digits = countDigits(value);
+          if (position > lineStart) {
+            if (position - lineStart + 1 + digits > MAXIMUM_LINE_LENGTH) {
+              buffer[position++] = '\n';
+              lineStart = position;
+            } else {
+              buffer[position++] = ' ';
+            }
+          }
+          for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+          }
+          position += digits;
+        }
+      }
+      buffer[position++] = '\n';
+    }
+    return ByteBuffer.wrap(buffer, 0, position);
+  }
+
+  private static int countDigits(int value) {
+    int digits = 1;
+    while (value >= 10) {
+      value /= 10;
+      digits++;
+    }
+    return digits;
+  }
+
+  private void writeChunk(WritableByteChannel channel, ByteBuffer chunk) throws IOException {
+    writeFully(channel, chunk);
+    freeBuffers.offer(chunk.array());
+  }
+
+  private static void writeFully(WritableByteChannel channel, ByteBuffer buffer)
+          throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
@@ -11,6 +11,7 @@ public abstract class AbstractImageBuilder implements ImageBuilder {
   protected int maximumPixelValue;
   protected int numberOfChannels;
   protected int[][][] matrix;
+  protected PixelStorage pixelStorage;
 
   /**
    * The constructor initializes these fields to default values as we are only dealing with ASCII
@@ -87,4 +88,58 @@ public abstract class AbstractImageBuilder implements ImageBuilder {
     this.matrix = matrix;
     return this;
   }
+
+  /**
+   * Sets the pixel storage holding the pixel values of the image.
+   *
+   * @param pixelStorage the storage holding the pixel values of the image
+   * @return ImageBuilder object with the pixel storage of the image set to the given storage
+   */
+  public ImageBuilder setPixelStorage(PixelStorage pixelStorage) {
+    this.pixelStorage = pixelStorage;
+    return this;
+  }
+
+  /**
+   * Sets all the attributes of the image being built to those of the given image, sharing its pixel
+   * storage if the image is backed by one and copying its pixel values otherwise.
+   *
+   * @param image the image whose attributes and pixel values are to be used
+   * @return ImageBuilder object with all its attributes set to those of the given image
+   */
+  public ImageBuilder setSourceImage(Image image) {
+    this.height = image.getHeight();
+    this.width = image.getWidth();
+    this.minimumPixelValue = image.getMinimumPixelValue();
+    this.maximumPixelValue = image.getMaximumPixelValue();
+    this.numberOfChannels = image.getNumberOfChannels();
+    this.matrix = null;
+    if (image instanceof ImageImpl) {
+      this.pixelStorage = ((ImageImpl) image).getPixelStorage();
+    } else {
+      this.pixelStorage = PixelStorage.allocate(height, width, numberOfChannels,
+              maximumPixelValue);
+      int[] values = new int[width];
+      for (int channel = 0; channel < numberOfChannels; channel++) {
+        for (int row = 0; row < height; row++) {
+          image.getRowValues(row, channel, values, 0);
+          pixelStorage.setSamples(channel, (long) row * width, values, 0, width);
+        }
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Returns the pixel storage of the image being built. If only a matrix has been set, its values
+   * are packed into a storage of the narrowest sample type that holds the maximum pixel value.
+   *
+   * @return the pixel storage of the image, or null if neither a storage nor a matrix has been set
+   */
+  protected PixelStorage resolvePixelStorage() {
+    if (pixelStorage == null && matrix != null) {
+      return PixelStorage.fromMatrix(matrix, maximumPixelValue);
+    }
+    return pixelStorage;
+  }
 }
@@ -0,0 +1,65 @@
+package model.image;
+
+/**
+ * Contains the code common to all pixel storages, i.e. keeping track of their dimensions and
+ * selecting channels by copying them into a new storage.
+ */
+public abstract class AbstractPixelStorage implements PixelStorage {
+
+  protected final int height;
+  protected final int width;
+  protected final int numberOfChannels;
+
+  protected AbstractPixelStorage(int height, int width, int numberOfChannels)
+          throws IllegalArgumentException {
+    if (height <= 0 || width <= 0 || numberOfChannels <= 0) {
+      throw new IllegalArgumentException("height, width and number of channels of a pixel "
+              + "storage must be positive");
+    }
+    this.height = height;
+    this.width = width;
+    this.numberOfChannels = numberOfChannels;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getNumberOfChannels() {
+    return numberOfChannels;
+  }
+
+  /**
+   * Checks that a channel of the given dimensions fits in a single array.
+   *
+   * @param height the number of rows
+   * @param width the number of columns
+   * @throws IllegalArgumentException if the channel has more than 2<sup>31</sup> - 1 samples
+   */
+  protected static void checkArraySize(int height, int width) throws IllegalArgumentException {
+    if ((long) height * width > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Image of " + height + "x" + width + " pixels is too "
+              + "large for an in-memory pixel storage");
+    }
+  }
+
+  @Override
+  public PixelStorage selectChannels(int... channels) {
+    PixelStorage selected = createCompatible(channels.length);
+    int[] samples = new int[width];
+    for (int channel = 0; channel < channels.length; channel++) {
+      for (int row = 0; row < height; row++) {
+        getSamples(channels[channel], (long) row * width, samples, 0, width);
+        selected.setSamples(channel, (long) row * width, samples, 0, width);
+      }
+    }
+    return selected;
+  }
+}
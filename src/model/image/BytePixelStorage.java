@@ -0,0 +1,113 @@
+package model.image;
+
+import java.util.List;
+
+/**
+ * A planar pixel storage holding each sample in a single unsigned byte. Each channel is kept in
+ * its own flat array of {@code height * width} samples, so images with pixel values up to 255 take
+ * one byte per sample and row-wise traversal walks memory sequentially.
+ */
+public class BytePixelStorage extends AbstractPixelStorage {
+
+  static final int MAXIMUM_SAMPLE_VALUE = 0xff;
+
+  private final byte[][] planes;
+
+  /**
+   * Allocates a storage with all samples set to zero.
+   *
+   * @param height the number of rows
+   * @param width the number of columns
+   * @param numberOfChannels the number of channels
+   */
+  public BytePixelStorage(int height, int width, int numberOfChannels) {
+    super(height, width, numberOfChannels);
+    checkArraySize(height, width);
+    this.planes = new byte[numberOfChannels][height * width];
+  }
+
+  private BytePixelStorage(int height, int width, byte[][] planes) {
+    super(height, width, planes.length);
+    this.planes = planes;
+  }
+
+  @Override
+  public int getMaximumSampleValue() {
+    return MAXIMUM_SAMPLE_VALUE;
+  }
+
+  @Override
+  public long getHeapBytes() {
+    long bytes = 0;
+    for (int channel = 0; channel < planes.length; channel++) {
+      if (isFirstUse(channel)) {
+        bytes += (long) planes[channel].length;
+      }
+    }
+    return bytes;
+  }
+
+  // Returns whether the plane of the given channel is not also the plane of an earlier channel.
+  private boolean isFirstUse(int channel) {
+    for (int earlier = 0; earlier < channel; earlier++) {
+      if (planes[earlier] == planes[channel]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int getSample(int channel, long index) {
+    return planes[channel][(int) index] & 0xff;
+  }
+
+  @Override
+  public void setSample(int channel, long index, int value) {
+    planes[channel][(int) index] = (byte) value;
+  }
+
+  @Override
+  public void getSamples(int channel, long index, int[] destination, int offset, int length) {
+    byte[] plane = planes[channel];
+    int start = (int) index;
+    for (int i = 0; i < length; i++) {
+      destination[offset + i] = plane[start + i] & 0xff;
+    }
+  }
+
+  @Override
+  public void setSamples(int channel, long index, int[] source, int offset, int length) {
+    byte[] plane = planes[channel];
+    int start = (int) index;
+    for (int i = 0; i < length; i++) {
+      plane[start + i] = (byte) source[offset + i];
+    }
+  }
+
+  @Override
+  public PixelStorage createCompatible(int numberOfChannels) {
+    return new BytePixelStorage(height, width, numberOfChannels);
+  }
+
+  @Override
+  public PixelStorage selectChannels(int... channels) {
+    byte[][] selected = new byte[channels.length][];
+    for (int i = 0; i < channels.length; i++) {
+      selected[i] = planes[channels[i]];
+    }
+    return new BytePixelStorage(height, width, selected);
+  }
+
+  static PixelStorage concatenate(List<PixelStorage> storages, int numberOfChannels) {
+    byte[][] concatenated = new byte[numberOfChannels][];
+    int channel = 0;
+    for (PixelStorage storage : storages) {
+      for (byte[] plane : ((BytePixelStorage) storage).planes) {
+        concatenated[channel++] = plane;
+      }
+    }
+    PixelStorage first = storages.get(0);
+    return new BytePixelStorage(first.getHeight(), first.getWidth(), concatenated);
+  }
+}
@@ -0,0 +1,138 @@
+package model.image;
+
+/**
+ * Represents a matrix that maps the red, green and blue samples of a pixel to one or more weighted
+ * sums, such as the rows of a color transform or the luma weights, in 16.16 fixed-point arithmetic.
+ *
+ * <p>Each weight w is stored as the integer W = round(w * 2^16) and each output sample is computed
+ * as (W0 * red + W1 * green + W2 * blue + 2^15) &gt;&gt; 16, clamped to the allowed range. Rounding
+ * a weight moves it by at most 2^-17, so for samples of at most M the fixed-point sum differs from
+ * the exact weighted sum by at most 3 * M * 2^-17, which is below 0.006 for 8 bit samples. The
+ * result is therefore the same as rounding the exact sum, except when the exact sum lies within
+ * that distance of a half, where it can differ by 1. The bound grows with M, so the fixed-point
+ * arithmetic is only offered for samples of at most 255, and not at all for weights that do not fit
+ * in 16.16 fixed-point (see {@link #supports(int)}); callers fall back to double arithmetic then.
+ *
+ * <p>For 8 bit samples every product is looked up in a table of 256 entries per weight, so that the
+ * scalar inner loop only adds and shifts.
+ */
+public class ColorMatrix {
+
+  static final int FRACTION_BITS = 16;
+  static final int HALF = 1 << (FRACTION_BITS - 1);
+
+  private static final int TABLE_SIZE = 256;
+
+  private final int rows;
+  private final boolean weightsInRange;
+  private final int[][] weights;
+  private final long[] weightMagnitudes;
+  private final int[][] productTables;
+
+  /**
+   * Converts the given matrix to fixed-point weights and builds the product tables. A matrix with a
+   * weight too large to be held in 16.16 fixed-point is accepted, but supports no samples at all.
+   *
+   * @param matrix the matrix, with one row of three weights for red, green and blue per output
+   * @throws IllegalArgumentException if the matrix is empty or a row does not have three weights
+   */
+  public ColorMatrix(double[][] matrix) throws IllegalArgumentException {
+    if (matrix.length == 0) {
+      throw new IllegalArgumentException("Invalid matrix dimensions");
+    }
+    rows = matrix.length;
+    weights = new int[rows][3];
+    weightMagnitudes = new long[rows];
+    productTables = new int[rows][3 * TABLE_SIZE];
+    boolean inRange = true;
+    for (int row = 0; row < rows; row++) {
+      if (matrix[row].length != 3) {
+        throw new IllegalArgumentException("Invalid matrix dimensions");
+      }
+      for (int col = 0; col < 3; col++) {
+        double scaled = Math.rint(matrix[row][col] * (1 << FRACTION_BITS));
+        // also false for NaN, which has no fixed-point value either
+        if (!(Math.abs(scaled) <= Integer.MAX_VALUE)) {
+          inRange = false;
+          continue;
+        }
+        int weight = (int) scaled;
+        weights[row][col] = weight;
+        weightMagnitudes[row] += Math.abs((long) weight);
+      }
+    }
+    weightsInRange = inRange;
+    // the tables are only used when every sum fits in an int, in which case so does every entry
+    if (supports(TABLE_SIZE - 1)) {
+      for (int row = 0; row < rows; row++) {
+        for (int col = 0; col < 3; col++) {
+          for (int value = 0; value < TABLE_SIZE; value++) {
+            productTables[row][col * TABLE_SIZE + value] = weights[row][col] * value;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of weighted sums computed for each pixel.
+   *
+   * @return the number of rows of the matrix
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Returns whether the fixed-point arithmetic can be used on samples up to the given value, that
+   * is whether every weight fits in 16.16 fixed-point, the samples are 8 bit ones and no weighted
+   * sum can overflow an int.
+   *
+   * @param maximumSampleValue the largest sample value that may be passed to the matrix
+   * @return true if the matrix can be applied to such samples, false otherwise
+   */
+  public boolean supports(int maximumSampleValue) {
+    if (!weightsInRange || maximumSampleValue >= TABLE_SIZE) {
+      return false;
+    }
+    for (long magnitude : weightMagnitudes) {
+      if (magnitude * maximumSampleValue + HALF > Integer.MAX_VALUE) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the fixed-point weights of the given row, for red, green and blue. The returned array
+   * must not be modified.
+   *
+   * @param row the row of the matrix
+   * @return the fixed-point weights of the row
+   */
+  int[] getWeights(int row) {
+    return weights[row];
+  }
+
+  /**
+   * Computes the weighted sum of the given row of the matrix for each of the given pixels, by
+   * looking the products up in the tables. The samples must be supported by this matrix.
+   *
+   * @param red the red samples
+   * @param green the green samples
+   * @param blue the blue samples
+   * @param row the row of the matrix holding the weights
+   * @param result the array receiving the weighted sums
+   * @param length the number of pixels
+   * @param minimumValue the smallest allowed result
+   * @param maximumValue the largest allowed result
+   */
+  void applyRow(int[] red, int[] green, int[] blue, int row, int[] result, int length,
+                int minimumValue, int maximumValue) {
+    int[] table = productTables[row];
+    for (int i = 0; i < length; i++) {
+      int sum = table[red[i]] + table[TABLE_SIZE + green[i]] + table[2 * TABLE_SIZE + blue[i]];
+      result[i] = Math.max(minimumValue, Math.min((sum + HALF) >> FRACTION_BITS, maximumValue));
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package model.image;
+
+/**
+ * Applies a square kernel of odd size to the samples of one channel of an image. Pixels outside
+ * the image are treated as zero. The weighted samples are added up in the order of the kernel, row
+ * by row, and the sum is truncated to an integer after every weight, which is the arithmetic filter
+ * has always used, before being clamped to the range of pixel values.
+ *
+ * <p>The interior of the image, where the whole kernel lies inside the image, is handled
+ * separately from the border so that the inner loop needs no bounds checks.
+ */
+public class Convolution {
+
+  private final int size;
+  private final int radius;
+  private final double[] weights;
+
+  /**
+   * Prepares the given kernel to be applied.
+   *
+   * @param kernel the kernel to be applied
+   * @throws IllegalArgumentException if the kernel is not square or its size is not odd
+   */
+  public Convolution(double[][] kernel) throws IllegalArgumentException {
+    size = kernel.length;
+    if (size == 0 || size % 2 == 0) {
+      throw new IllegalArgumentException("Invalid kernel dimensions");
+    }
+    for (double[] kernelRow : kernel) {
+      if (kernelRow.length != size) {
+        throw new IllegalArgumentException("Invalid kernel dimensions");
+      }
+    }
+    radius = size / 2;
+    weights = new double[size * size];
+    for (int i = 0; i < size; i++) {
+      System.arraycopy(kernel[i], 0, weights, i * size, size);
+    }
+  }
+
+  /**
+   * Returns the number of rows or columns that the kernel extends on each side of its center.
+   *
+   * @return the radius of the kernel
+   */
+  public int getRadius() {
+    return radius;
+  }
+
+  /**
+   * Convolves a band of rows of a channel. Only the rows of the channel that lie within the radius
+   * of the kernel of the band are read, so the source needs to hold no more than those rows, and
+   * bands can be computed independently of each other.
+   *
+   * @param source the samples of consecutive rows of the channel, row by row, including every row
+   *               within the radius of the kernel of the band that lies inside the channel
+   * @param firstSourceRow the row of the channel that the source starts with
+   * @param height the number of rows in the channel
+   * @param width the number of columns in the channel
+   * @param startRow the first row of the band, inclusive
+   * @param endRow the last row of the band, exclusive
+   * @param destination the array receiving the filtered rows of the band, row by row
+   * @param minimumValue the smallest allowed output value
+   * @param maximumValue the largest allowed output value
+   */
+  public void apply(int[] source, int firstSourceRow, int height, int width, int startRow,
+                    int endRow, int[] destination, int minimumValue, int maximumValue) {
+    int interiorStartCol = Math.min(radius, width);
+    int interiorEndCol = Math.max(interiorStartCol, width - radius);
+    for (int row = startRow; row < endRow; row++) {
+      int out = (row - startRow) * width;
+      if (row < radius || row >= height - radius) {
+        for (int col = 0; col < width; col++) {
+          destination[out + col] = clamp(
+                  sumAtBorder(source, firstSourceRow, height, width, row, col),
+                  minimumValue, maximumValue);
+        }
+        continue;
+      }
+      for (int col = 0; col < interiorStartCol; col++) {
+        destination[out + col] = clamp(
+                sumAtBorder(source, firstSourceRow, height, width, row, col),
+                minimumValue, maximumValue);
+      }
+      for (int col = interiorStartCol; col < interiorEndCol; col++) {
+        // the compound assignment truncates the sum to an integer after every weight
+        int sum = 0;
+        int start = (row - radius - firstSourceRow) * width + col - radius;
+        for (int ki = 0, w = 0; ki < size; ki++, start += width) {
+          for (int kj = 0; kj < size; kj++, w++) {
+            sum += weights[w] * source[start + kj];
+          }
+        }
+        destination[out + col] = clamp(sum, minimumValue, maximumValue);
+      }
+      for (int col = interiorEndCol; col < width; col++) {
+        destination[out + col] = clamp(
+                sumAtBorder(source, firstSourceRow, height, width, row, col),
+                minimumValue, maximumValue);
+      }
+    }
+  }
+
+  private int sumAtBorder(int[] source, int firstSourceRow, int height, int width, int row,
+                          int col) {
+    int sum = 0;
+    for (int ki = 0; ki < size; ki++) {
+      int sourceRow = row + ki - radius;
+      if (sourceRow < 0 || sourceRow >= height) {
+        continue;
+      }
+      for (int kj = 0; kj < size; kj++) {
+        int sourceCol = col + kj - radius;
+        if (sourceCol >= 0 && sourceCol < width) {
+          sum += weights[ki * size + kj]
+                  * source[(sourceRow - firstSourceRow) * width + sourceCol];
+        }
+      }
+    }
+    return sum;
+  }
+
+  private static int clamp(int sum, int minimumValue, int maximumValue) {
+    return Math.max(minimumValue, Math.min(sum, maximumValue));
+  }
+}
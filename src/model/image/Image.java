@@ -90,6 +90,16 @@ public interface Image {
    */
   int getMinimumPixelValue();
 
+  /**
+   * Returns the number of bytes of heap memory held by the pixel values of this image. This
+   * includes the pixel values of the images this one reads its own from, such as the source of a
+   * brightened 8 bit image, as they are kept in memory for as long as this image is. Pixel values
+   * mapped from files take none.
+   *
+   * @return the number of bytes of heap memory held by the pixel values
+   */
+  long getHeapBytes();
+
   /**
    * Returns the pixel value at the given location in the image.
    *
@@ -99,4 +109,52 @@ public interface Image {
    * @return the pixel value at the given row, column and channel in the image
    */
   int getPixelValue(int row, int col, int channel);
+
+  /**
+   * Copies the pixel values of one channel of a row of the image into the given array.
+   *
+   * @param row row of the image
+   * @param channel channel of the image
+   * @param destination the array into which the width of the image worth of values is copied
+   * @param offset the position in the destination array of the value of the first column
+   */
+  void getRowValues(int row, int channel, int[] destination, int offset);
+
+  /**
+   * Copies the pixel values of one channel of a rectangular region of the image into the given
+   * array. The values are copied row by row, each row taking up region width consecutive elements.
+   *
+   * @param row the top row of the region
+   * @param col the left column of the region
+   * @param regionHeight the number of rows in the region
+   * @param regionWidth the number of columns in the region
+   * @param channel channel of the image
+   * @param destination the array into which the values are copied
+   * @param offset the position in the destination array of the value of the top left pixel
+   */
+  void getRegionValues(int row, int col, int regionHeight, int regionWidth, int channel,
+                       int[] destination, int offset);
+
+  /**
+   * Copies all the pixel values of one channel of the image into the given array, row by row.
+   *
+   * @param channel channel of the image
+   * @param destination the array into which height times width values are copied
+   * @param offset the position in the destination array of the value of the top left pixel
+   */
+  void getChannelValues(int channel, int[] destination, int offset);
+
+  /**
+   * Copies a band of consecutive rows of the image into the given array as packed 8-bit ARGB
+   * pixels, row by row. Images with fewer than 3 channels are treated as greyscale, the alpha is
+   * taken from the fourth channel if present and is opaque otherwise, and deeper pixel values are
+   * scaled down to 8 bits.
+   *
+   * @param startRow the first row of the band, inclusive
+   * @param endRow the last row of the band, exclusive
+   * @param destination the array into which the width of the image worth of pixels is copied for
+   *                    each row of the band
+   * @param offset the position in the destination array of the first pixel of the first row
+   */
+  void getPackedRows(int startRow, int endRow, int[] destination, int offset);
 }
@@ -55,6 +55,26 @@ public interface ImageBuilder {
    */
   ImageBuilder setMatrix(int[][][] matrix);
 
+  /**
+   * Sets the pixel storage holding the pixel values of the image. It takes precedence over a
+   * matrix set using {@link #setMatrix(int[][][])} and is used by the image without being copied.
+   *
+   * @param pixelStorage the storage holding the pixel values of the image
+   * @return ImageBuilder object with the pixel storage of the image set to the given storage
+   */
+  ImageBuilder setPixelStorage(PixelStorage pixelStorage);
+
+  /**
+   * Sets the height, width, number of channels, minimum and maximum pixel values and the pixel
+   * values of the image to those of the given image. The pixel values are shared with the given
+   * image rather than copied whenever its storage is accessible, so an image can be turned into an
+   * image of another version at no cost.
+   *
+   * @param image the image whose attributes and pixel values are to be used
+   * @return ImageBuilder object with all its attributes set to those of the given image
+   */
+  ImageBuilder setSourceImage(Image image);
+
   /**
    * Creates an Image object with the values set as above.
    *
@@ -15,35 +15,46 @@ import utils.FlipDirection;
  * greyscale and many more.
  */
 public class ImageImpl implements Image {
+  static final PointKernels POINT_KERNELS = PointKernels.getFastestAvailable();
+
+  private static final ColorMatrix LUMA_WEIGHTS =
+          new ColorMatrix(new double[][]{{0.2126, 0.7152, 0.0722}});
+
   private final int height;
   private final int width;
   private final int minimumPixelValue;
   private final int maximumPixelValue;
   private final int numberOfChannels;
-  private final int[][][] matrix;
+  private final PixelStorage pixelStorage;
 
   protected ImageImpl(int height, int width, int minimumPixelValue, int maximumPixelValue,
-                    int numberOfChannels, int[][][] matrix) throws IllegalArgumentException {
+                    int numberOfChannels, PixelStorage pixelStorage)
+          throws IllegalArgumentException {
     if (height == 0 || width == 0) {
       throw new IllegalArgumentException("height or width cannot be 0. Make sure "
               + "you have set the height and width correctly");
     }
 
-    if (matrix == null) {
+    if (pixelStorage == null) {
       throw new IllegalArgumentException("Matrix has not been initialized");
     }
 
-    if (height != matrix.length || width != matrix[0].length
-            || numberOfChannels != matrix[0][0].length) {
+    if (height != pixelStorage.getHeight() || width != pixelStorage.getWidth()
+            || numberOfChannels != pixelStorage.getNumberOfChannels()) {
       throw new IllegalArgumentException("dimensions of the matrix do not match the height, width "
               + "and number of channels of the image.");
     }
+
+    if (maximumPixelValue > pixelStorage.getMaximumSampleValue()) {
+      throw new IllegalArgumentException("pixel storage cannot hold values up to the maximum "
+              + "pixel value of the image.");
+    }
     this.height = height;
     this.width = width;
     this.minimumPixelValue = minimumPixelValue;
     this.maximumPixelValue = maximumPixelValue;
     this.numberOfChannels = numberOfChannels;
-    this.matrix = matrix;
+    this.pixelStorage = pixelStorage;
   }
 
   @Override
@@ -71,116 +82,234 @@ public class ImageImpl implements Image {
     return numberOfChannels;
   }
 
+  @Override
+  public long getHeapBytes() {
+    return pixelStorage.getHeapBytes();
+  }
+
   @Override
   public int getPixelValue(int row, int col, int channel) {
-    return matrix[row][col][channel];
+    return pixelStorage.getSample(channel, (long) row * width + col);
   }
 
   @Override
-  public Image brighten(int amount) {
-    int[][][] brightenedImageMatrix = new int[height][width][numberOfChannels];
+  public void getRowValues(int row, int channel, int[] destination, int offset) {
+    pixelStorage.getSamples(channel, (long) row * width, destination, offset, width);
+  }
 
-    for (int row = 0; row < height; row++) {
+  @Override
+  public void getRegionValues(int row, int col, int regionHeight, int regionWidth, int channel,
+                              int[] destination, int offset) {
+    if (row < 0 || col < 0 || row + regionHeight > height || col + regionWidth > width) {
+      throw new IndexOutOfBoundsException("Region lies outside the image");
+    }
+    for (int i = 0; i < regionHeight; i++) {
+      pixelStorage.getSamples(channel, (long) (row + i) * width + col, destination,
+              offset + i * regionWidth, regionWidth);
+    }
+  }
+
+  @Override
+  public void getChannelValues(int channel, int[] destination, int offset) {
+    pixelStorage.getSamples(channel, 0, destination, offset,
+            Math.toIntExact((long) height * width));
+  }
+
+  @Override
+  public void getPackedRows(int startRow, int endRow, int[] destination, int offset) {
+    boolean isColor = numberOfChannels >= 3;
+    int[] red = new int[width];
+    int[] green = isColor ? new int[width] : red;
+    int[] blue = isColor ? new int[width] : red;
+    int[] alpha = numberOfChannels >= 4 ? new int[width] : null;
+    int scale = Math.max(maximumPixelValue, 255);
+
+    for (int row = startRow; row < endRow; row++, offset += width) {
+      long index = (long) row * width;
+      pixelStorage.getSamples(0, index, red, 0, width);
+      if (isColor) {
+        pixelStorage.getSamples(1, index, green, 0, width);
+        pixelStorage.getSamples(2, index, blue, 0, width);
+      }
+      if (alpha != null) {
+        pixelStorage.getSamples(3, index, alpha, 0, width);
+      }
       for (int col = 0; col < width; col++) {
-        for (int channel = 0; channel < numberOfChannels; channel++) {
-          brightenedImageMatrix[row][col][channel] = Math.max(minimumPixelValue,
-                  Math.min(matrix[row][col][channel] + amount, maximumPixelValue));
+        int r = red[col];
+        int g = green[col];
+        int b = blue[col];
+        int a = alpha == null ? 255 : alpha[col];
+        if (scale != 255) {
+          r = r * 255 / scale;
+          g = g * 255 / scale;
+          b = b * 255 / scale;
+          a = alpha == null ? 255 : a * 255 / scale;
         }
+        destination[offset + col] = (a << 24) | (r << 16) | (g << 8) | b;
       }
     }
-    return new ImageImplBuilder().setHeight(height).setWidth(width).setMatrix(brightenedImageMatrix)
-            .build();
+  }
+
+  /**
+   * Returns the storage holding the pixel values of this image. It must not be modified.
+   *
+   * @return the storage holding the pixel values of this image
+   */
+  PixelStorage getPixelStorage() {
+    return pixelStorage;
+  }
+
+  @Override
+  public Image brighten(int amount) {
+    if (LookupTable.supports(pixelStorage.getMaximumSampleValue())) {
+      return applyPointOperation(PointOp.brighten(amount));
+    }
+    PixelStorage brightened = pixelStorage.createCompatible(numberOfChannels);
+
+    RowBands.forEach(height, width, (startRow, endRow) -> {
+      int[] samples = new int[width];
+      for (int channel = 0; channel < numberOfChannels; channel++) {
+        for (int row = startRow; row < endRow; row++) {
+          long index = (long) row * width;
+          pixelStorage.getSamples(channel, index, samples, 0, width);
+          POINT_KERNELS.brighten(samples, 0, width, amount, minimumPixelValue,
+                  maximumPixelValue);
+          brightened.setSamples(channel, index, samples, 0, width);
+        }
+      }
+    });
+    return buildImage(brightened);
+  }
+
+  /**
+   * Applies the given point operation to every sample of this image, whose samples must be 8 bit
+   * ones, clamping the results to the range of pixel values. The samples are not computed here: the
+   * returned image reads the samples of this image through a lookup table, and a point operation
+   * applied to that image composes its table with this one, so a chain of point operations builds
+   * no intermediate planes. The table is applied again every time the samples of the result are
+   * read, and the result keeps the storage of this image alive for as long as it is used, which
+   * {@link #getHeapBytes()} of the result accounts for.
+   *
+   * @param operation the point operation to be applied
+   * @return the resultant image
+   */
+  protected Image applyPointOperation(PointOp operation) {
+    LookupTable table = new LookupTable(operation, minimumPixelValue, maximumPixelValue);
+    if (pixelStorage instanceof LookupPixelStorage) {
+      return buildImage(((LookupPixelStorage) pixelStorage).andThen(table));
+    }
+    return buildImage(new LookupPixelStorage(pixelStorage, table));
   }
 
   @Override
   public Image flip(FlipDirection flipDirection) {
-    int[][][] flippedImageMatrix = new int[height][width][numberOfChannels];
+    PixelStorage flipped = pixelStorage.createCompatible(numberOfChannels);
 
     if (flipDirection.equals(FlipDirection.HORIZONTAL)) {
-      for (int row = 0; row < height; row++) {
-        for (int col = 0; col < width; col++) {
-          System.arraycopy(matrix[row][width - 1 - col], 0, flippedImageMatrix[row][col],
-                  0, numberOfChannels);
+      RowBands.forEach(height, width, (startRow, endRow) -> {
+        int[] samples = new int[width];
+        for (int channel = 0; channel < numberOfChannels; channel++) {
+          for (int row = startRow; row < endRow; row++) {
+            long index = (long) row * width;
+            pixelStorage.getSamples(channel, index, samples, 0, width);
+            for (int left = 0, right = width - 1; left < right; left++, right--) {
+              int sample = samples[left];
+              samples[left] = samples[right];
+              samples[right] = sample;
+            }
+            flipped.setSamples(channel, index, samples, 0, width);
+          }
         }
-      }
+      });
     } else if (flipDirection.equals(FlipDirection.VERTICAL)) {
-      for (int row = 0; row < height; row++) {
-        for (int col = 0; col < width; col++) {
-          System.arraycopy(matrix[height - 1 - row][col], 0, flippedImageMatrix[row][col],
-                  0, numberOfChannels);
+      RowBands.forEach(height, width, (startRow, endRow) -> {
+        int[] samples = new int[width];
+        for (int channel = 0; channel < numberOfChannels; channel++) {
+          for (int row = startRow; row < endRow; row++) {
+            pixelStorage.getSamples(channel, (long) (height - 1 - row) * width, samples, 0,
+                    width);
+            flipped.setSamples(channel, (long) row * width, samples, 0, width);
+          }
         }
-      }
+      });
     }
-    return new ImageImplBuilder().setHeight(height).setWidth(width)
-            .setMatrix(flippedImageMatrix).build();
+    return buildImage(flipped);
   }
 
-  private int[][][] getGreyscaleImageMatrixByChannel(int channelNumber) {
-    int[][][] greyscaleImageMatrix = new int[height][width][numberOfChannels];
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
+  // Every channel of the greyscale image is the same plane, so the selected channel of this image
+  // is shared rather than copied.
+  private PixelStorage getGreyscaleStorageByChannel(int channelNumber) {
+    int[] channels = new int[numberOfChannels];
+    Arrays.fill(channels, channelNumber);
+    return pixelStorage.selectChannels(channels);
+  }
+
+  private PixelStorage getGreyscaleStorageByBrightness(Component component) {
+    PixelStorage greyscale = pixelStorage.createCompatible(1);
+
+    RowBands.forEach(height, width, (startRow, endRow) -> {
+      int[][] samples = new int[numberOfChannels][width];
+      int[] greyscaleSamples = new int[width];
+      for (int row = startRow; row < endRow; row++) {
+        long index = (long) row * width;
         for (int channel = 0; channel < numberOfChannels; channel++) {
-          greyscaleImageMatrix[row][col][channel] = matrix[row][col][channelNumber];
+          pixelStorage.getSamples(channel, index, samples[channel], 0, width);
         }
+        getGreyscaleRowByBrightness(component, samples, greyscaleSamples);
+        greyscale.setSamples(0, index, greyscaleSamples, 0, width);
       }
-    }
-    return greyscaleImageMatrix;
+    });
+    return greyscale.selectChannels(new int[numberOfChannels]);
   }
 
-  private int[][][] getGreyscaleImageMatrixByBrightness(Component component) {
-    int[][][] greyscaleImageMatrix = new int[height][width][numberOfChannels];
-
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        for (int channel = 0; channel < numberOfChannels; channel++) {
-          switch (component) {
-            case VALUE:
-              if (Arrays.stream(matrix[row][col]).max().isPresent()) {
-                greyscaleImageMatrix[row][col][channel] = Arrays.stream(matrix[row][col]).max()
-                        .getAsInt();
-              }
-              break;
-            case LUMA:
-              greyscaleImageMatrix[row][col][channel] = (int) Math.round(0.2126
-                      * matrix[row][col][0] + 0.7152 * matrix[row][col][1]
-                      + 0.0722 * matrix[row][col][2]);
-              break;
-            case INTENSITY:
-              if (Arrays.stream(matrix[row][col]).average().isPresent()) {
-                greyscaleImageMatrix[row][col][channel] = (int) Math.round(
-                        Arrays.stream(matrix[row][col]).average().getAsDouble());
-              }
-              break;
-            default:
-              throw new IllegalArgumentException("Invalid brightness value");
+  private void getGreyscaleRowByBrightness(Component component, int[][] samples,
+                                           int[] greyscaleSamples) {
+    switch (component) {
+      case VALUE:
+        for (int col = 0; col < width; col++) {
+          int value = samples[0][col];
+          for (int channel = 1; channel < numberOfChannels; channel++) {
+            value = Math.max(value, samples[channel][col]);
           }
+          greyscaleSamples[col] = value;
         }
-      }
+        break;
+      case LUMA:
+        if (LUMA_WEIGHTS.supports(maximumPixelValue)) {
+          POINT_KERNELS.weightedSum(samples[0], samples[1], samples[2], LUMA_WEIGHTS, 0,
+                  greyscaleSamples, width, 0, maximumPixelValue);
+        } else {
+          POINT_KERNELS.luma(samples[0], samples[1], samples[2], greyscaleSamples, width);
+        }
+        break;
+      case INTENSITY:
+        POINT_KERNELS.intensity(samples, greyscaleSamples, width);
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid brightness value");
     }
-    return greyscaleImageMatrix;
   }
 
   @Override
   public Image greyScale(Component component) {
-    int[][][] greyscaleImageMatrix;
+    PixelStorage greyscaleStorage;
 
     switch (component) {
       case RED:
       case GREEN:
       case BLUE:
-        greyscaleImageMatrix = getGreyscaleImageMatrixByChannel(
+        greyscaleStorage = getGreyscaleStorageByChannel(
                 ColorChannel.valueOf(String.valueOf(component)).getChannelNumber());
         break;
       case VALUE:
       case LUMA:
       case INTENSITY:
-        greyscaleImageMatrix = getGreyscaleImageMatrixByBrightness(component);
+        greyscaleStorage = getGreyscaleStorageByBrightness(component);
         break;
       default:
         throw new IllegalArgumentException("Invalid component");
     }
-    return new ImageImplBuilder().setHeight(height).setWidth(width)
-            .setMatrix(greyscaleImageMatrix).build();
+    return buildImage(greyscaleStorage);
   }
 
   public List<Image> split() {
@@ -192,21 +321,29 @@ public class ImageImpl implements Image {
   public Image combine(List<Image> images) throws UnsupportedOperationException {
     images.add(0, this);
     int numberOfChannels = images.size();
-    int[][][] combinedImageMatrix = new int[height][width][numberOfChannels];
+    PixelStorage combined = pixelStorage.createCompatible(numberOfChannels);
 
     if (this.isSimilarTo(images)) {
-      for (int row = 0; row < height; row++) {
-        for (int col = 0; col < width; col++) {
-          for (int channel = 0; channel < numberOfChannels; channel++) {
-            combinedImageMatrix[row][col][channel] = images.get(channel).getPixelValue(row, col, 0);
+      RowBands.forEach(height, width, (startRow, endRow) -> {
+        int[] samples = new int[width];
+        for (int channel = 0; channel < numberOfChannels; channel++) {
+          Image image = images.get(channel);
+          for (int row = startRow; row < endRow; row++) {
+            image.getRowValues(row, 0, samples, 0);
+            combined.setSamples(channel, (long) row * width, samples, 0, width);
           }
         }
-      }
+      });
     } else {
       throw new UnsupportedOperationException("Cannot combine images of different types");
     }
+    return buildImage(combined);
+  }
+
+  private Image buildImage(PixelStorage storage) {
     return new ImageImplBuilder().setHeight(height).setWidth(width)
-            .setMatrix(combinedImageMatrix).build();
+            .setMinimumPixelValue(minimumPixelValue).setMaximumPixelValue(maximumPixelValue)
+            .setNumberOfChannels(storage.getNumberOfChannels()).setPixelStorage(storage).build();
   }
 
   private boolean isSimilarTo(List<Image> images) {
@@ -240,7 +377,7 @@ public class ImageImpl implements Image {
             ", minimumPixelValue=" + minimumPixelValue +
             ", maximumPixelValue=" + maximumPixelValue +
             ", numberOfChannels=" + numberOfChannels +
-            ", matrix=" + Arrays.deepToString(matrix) +
+            ", matrix=" + Arrays.deepToString(pixelStorage.toMatrix()) +
             '}';
   }
 
@@ -261,7 +398,7 @@ public class ImageImpl implements Image {
     @Override
     public Image build() {
       return new ImageImpl(height, width, minimumPixelValue, maximumPixelValue, numberOfChannels,
-              matrix);
+              resolvePixelStorage());
     }
   }
 }
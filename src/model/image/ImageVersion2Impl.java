@@ -1,6 +1,7 @@
 package model.image;
 
-import controller.utils.Messages;
+import java.util.Arrays;
+
 import model.enums.ColorChannel;
 
 /**
@@ -10,8 +11,8 @@ import model.enums.ColorChannel;
 public class ImageVersion2Impl extends ImageImpl implements ImageVersion2 {
 
   protected ImageVersion2Impl(int height, int width, int minimumPixelValue, int maximumPixelValue,
-                              int numberOfChannels, int[][][] matrix) {
-    super(height, width, minimumPixelValue, maximumPixelValue, numberOfChannels, matrix);
+                              int numberOfChannels, PixelStorage pixelStorage) {
+    super(height, width, minimumPixelValue, maximumPixelValue, numberOfChannels, pixelStorage);
   }
 
   @Override
@@ -19,136 +20,142 @@ public class ImageVersion2Impl extends ImageImpl implements ImageVersion2 {
     if (kernel.length != kernel[0].length || kernel.length % 2 == 0) {
       throw new IllegalArgumentException("Invalid kernel dimensions");
     }
-    int[][][] result = new int[this.getHeight()][this.getWidth()][this.getNumberOfChannels()];
-    int kernelSize = kernel.length;
-    for (int c = 0; c < this.getNumberOfChannels(); c++) {
-      for (int i = 0; i < this.getHeight(); i++) {
-        for (int j = 0; j < this.getWidth(); j++) {
-          int sum = 0;
-
-          for (int ki = 0; ki < kernelSize; ki++) {
-            int ii = i + ki - (kernelSize / 2);
-
-            for (int kj = 0; kj < kernelSize; kj++) {
-              int jj = j + kj - (kernelSize / 2);
-
-              if (ii >= 0 && ii < this.getHeight() && jj >= 0 && jj < this.getWidth()) {
-                sum += kernel[ki][kj] * this.getPixelValue(ii, jj, c);
-              }
-            }
-          }
-          if (sum < 0) {
-            sum = 0;
-          }
-          if (sum > 255) {
-            sum = 255;
-          }
-          sum = Math.round(sum);
-
-          result[i][j][c] = sum;
-        }
+    Convolution convolution = new Convolution(kernel);
+    int height = this.getHeight();
+    int width = this.getWidth();
+    int minimum = this.getMinimumPixelValue();
+    int maximum = this.getMaximumPixelValue();
+    int radius = convolution.getRadius();
+    PixelStorage source = this.getPixelStorage();
+    PixelStorage result = source.createCompatible(this.getNumberOfChannels());
+    // each band reads only its own rows and the rows within the kernel radius around it from the
+    // storage, so that no channel is ever copied as a whole
+    RowBands.forEach(height, width, (startRow, endRow) -> {
+      int firstSourceRow = Math.max(0, startRow - radius);
+      int endSourceRow = Math.min(height, endRow + radius);
+      int[] band = new int[(endSourceRow - firstSourceRow) * width];
+      int[] filteredBand = new int[(endRow - startRow) * width];
+      for (int channel = 0; channel < this.getNumberOfChannels(); channel++) {
+        source.getSamples(channel, (long) firstSourceRow * width, band, 0, band.length);
+        convolution.apply(band, firstSourceRow, height, width, startRow, endRow, filteredBand,
+                minimum, maximum);
+        result.setSamples(channel, (long) startRow * width, filteredBand, 0,
+                filteredBand.length);
       }
-    }
-    return new ImageVersion2ImplBuilder()
-            .setHeight(this.getHeight())
-            .setWidth(this.getWidth())
-            .setNumberOfChannels(this.getNumberOfChannels())
-            .setMatrix(result)
-            .build();
+    });
+    return buildImage(result);
   }
 
   @Override
   public Image colorTransform(double[][] transform) {
-    int[][][] transformedImage =
-            new int[this.getHeight()][this.getWidth()][this.getNumberOfChannels()];
-
-
-    for (int i = 0; i < this.getHeight(); i++) {
-      for (int j = 0; j < this.getWidth(); j++) {
-        //for (int k = 0; k < this.getNumberOfChannels(); k++) {
-        int red = this.getPixelValue(i, j, 0);
-        int green = this.getPixelValue(i, j, 1);
-        int blue = this.getPixelValue(i, j, 2);
-
-        double newRed = transform[0][0] * red + transform[0][1] * green + transform[0][2] * blue;
-        double newGreen = transform[1][0] * red + transform[1][1] * green + transform[1][2] * blue;
-        double newBlue = transform[2][0] * red + transform[2][1] * green + transform[2][2] * blue;
-
-        // clamp the resulting values in the range [0, 255]
-        newRed = Math.min(Math.max(newRed, 0), 255);
-        newGreen = Math.min(Math.max(newGreen, 0), 255);
-        newBlue = Math.min(Math.max(newBlue, 0), 255);
-
-        transformedImage[i][j][0] = (int) Math.round(newRed);
-        transformedImage[i][j][1] = (int) Math.round(newGreen);
-        transformedImage[i][j][2] = (int) Math.round(newBlue);
-
+    int width = this.getWidth();
+    int minimum = this.getMinimumPixelValue();
+    int maximum = this.getMaximumPixelValue();
+    PixelStorage source = this.getPixelStorage();
+    PixelStorage transformed = source.createCompatible(3);
+
+    ColorMatrix matrix = new ColorMatrix(transform);
+    // 8 bit images use the fixed-point weights, deeper ones the exact double arithmetic
+    boolean fixedPoint = matrix.supports(this.getMaximumPixelValue());
+
+    RowBands.forEach(this.getHeight(), width, (startRow, endRow) -> {
+      int[] red = new int[width];
+      int[] green = new int[width];
+      int[] blue = new int[width];
+      int[] result = new int[width];
+      for (int i = startRow; i < endRow; i++) {
+        long index = (long) i * width;
+        source.getSamples(0, index, red, 0, width);
+        source.getSamples(1, index, green, 0, width);
+        source.getSamples(2, index, blue, 0, width);
+        if (fixedPoint) {
+          for (int channel = 0; channel < 3; channel++) {
+            POINT_KERNELS.weightedSum(red, green, blue, matrix, channel, result, width, minimum,
+                    maximum);
+            transformed.setSamples(channel, index, result, 0, width);
+          }
+        } else {
+          POINT_KERNELS.colorTransform(red, green, blue, width, transform, minimum, maximum);
+          transformed.setSamples(0, index, red, 0, width);
+          transformed.setSamples(1, index, green, 0, width);
+          transformed.setSamples(2, index, blue, 0, width);
+        }
       }
-    }
-    return new ImageVersion2ImplBuilder()
-            .setHeight(this.getHeight())
-            .setWidth(this.getWidth())
-            .setMatrix(transformedImage)
-            .build();
+    });
+    return buildImage(withRemainingChannels(transformed));
   }
 
   @Override
   public Image dither(ColorChannel channel) {
     int height = this.getHeight();
     int width = this.getWidth();
-    int[][] gray = new int[height][width];
+    int minimum = this.getMinimumPixelValue();
+    int maximum = this.getMaximumPixelValue();
+    int threshold = (minimum + maximum + 1) / 2;
+    PixelStorage source = this.getPixelStorage();
+    int channelNumber = channel.getChannelNumber();
+
+    PixelStorage dithered = source.createCompatible(1);
+    int[] ditheredRow = new int[width];
+    // the error of a row only spreads to the row below it, so two rows are all that is held
+    int[] gray = new int[width];
+    int[] nextGray = new int[width];
+    source.getSamples(channelNumber, 0, gray, 0, width);
 
     for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = this.getPixelValue(i, j, 0);
-        int g = this.getPixelValue(i, j, 1);
-        int b = this.getPixelValue(i, j, 2);
-        switch (channel.getChannelName()) {
-          case "red":
-            gray[i][j] = r;
-            break;
-          case "green":
-            gray[i][j] = g;
-            break;
-          case "blue":
-            gray[i][j] = b;
-            break;
-          default:
-            throw new IllegalArgumentException(Messages.INVALID_CHANNEL_VALUE);
-        }
+      if (i < height - 1) {
+        source.getSamples(channelNumber, (long) (i + 1) * width, nextGray, 0, width);
       }
-    }
-
-    int[][][] ditheredImage = new int[this.getHeight()][this.getWidth()]
-            [this.getNumberOfChannels()];
-
-    for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
-        int old_color = gray[i][j];
-        int new_color = (old_color < 128) ? 0 : 255;
+        int old_color = gray[j];
+        int new_color = (old_color < threshold) ? minimum : maximum;
         int error = old_color - new_color;
-        ditheredImage[i][j][0] = new_color;
-        ditheredImage[i][j][1] = new_color;
-        ditheredImage[i][j][2] = new_color;
+        ditheredRow[j] = new_color;
         if (j < width - 1) {
-          gray[i][j + 1] += (7 * error) / 16;
+          gray[j + 1] += (7 * error) / 16;
         }
         if (i < height - 1 && j > 0) {
-          gray[i + 1][j - 1] += (3 * error) / 16;
+          nextGray[j - 1] += (3 * error) / 16;
         }
         if (i < height - 1) {
-          gray[i + 1][j] += (5 * error) / 16;
+          nextGray[j] += (5 * error) / 16;
         }
         if (i < height - 1 && j < width - 1) {
-          gray[i + 1][j + 1] += (error) / 16;
+          nextGray[j + 1] += (error) / 16;
         }
       }
+      dithered.setSamples(0, (long) i * width, ditheredRow, 0, width);
+      int[] row = gray;
+      gray = nextGray;
+      nextGray = row;
     }
 
+    return buildImage(withRemainingChannels(dithered.selectChannels(0, 0, 0)));
+  }
+
+  // Appends the channels of this image beyond red, green and blue (such as alpha) unchanged to the
+  // given 3 channel storage.
+  private PixelStorage withRemainingChannels(PixelStorage rgb) {
+    int numberOfChannels = this.getNumberOfChannels();
+    if (numberOfChannels <= 3) {
+      return rgb;
+    }
+    int[] remainingChannels = new int[numberOfChannels - 3];
+    for (int i = 0; i < remainingChannels.length; i++) {
+      remainingChannels[i] = i + 3;
+    }
+    return PixelStorage.concatenate(Arrays.asList(rgb,
+            this.getPixelStorage().selectChannels(remainingChannels)));
+  }
+
+  private Image buildImage(PixelStorage storage) {
     return new ImageVersion2ImplBuilder()
             .setHeight(this.getHeight())
             .setWidth(this.getWidth())
-            .setMatrix(ditheredImage)
+            .setMinimumPixelValue(this.getMinimumPixelValue())
+            .setMaximumPixelValue(this.getMaximumPixelValue())
+            .setNumberOfChannels(storage.getNumberOfChannels())
+            .setPixelStorage(storage)
             .build();
   }
 
@@ -167,7 +174,7 @@ public class ImageVersion2Impl extends ImageImpl implements ImageVersion2 {
     @Override
     public ImageVersion2 build() {
       return new ImageVersion2Impl(height, width, minimumPixelValue, maximumPixelValue,
-              numberOfChannels, matrix);
+              numberOfChannels, resolvePixelStorage());
     }
   }
 }
@@ -3,8 +3,8 @@ package model.image;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.Collections;
 
+import utils.ClusterAccumulator;
 import utils.ClusterPositions;
 
 /**
@@ -14,8 +14,8 @@ import utils.ClusterPositions;
 public class ImageVersion3Impl extends ImageVersion2Impl implements ImageVersion3 {
 
   protected ImageVersion3Impl(int height, int width, int minimumPixelValue, int maximumPixelValue,
-                              int numberOfChannels, int[][][] matrix) {
-    super(height, width, minimumPixelValue, maximumPixelValue, numberOfChannels, matrix);
+                              int numberOfChannels, PixelStorage pixelStorage) {
+    super(height, width, minimumPixelValue, maximumPixelValue, numberOfChannels, pixelStorage);
   }
 
   @Override
@@ -23,43 +23,80 @@ public class ImageVersion3Impl extends ImageVersion2Impl implements ImageVersion
     int width = this.getWidth();
     int height = this.getHeight();
 
-    if (seed == width * height) {
+    long pixels = (long) width * height;
+    if (seed == pixels) {
       return this;
-    } else if (seed > width * height || seed < 1) {
+    } else if (seed > pixels || seed < 1) {
       throw new IllegalArgumentException("Error: Seed value is invalid");
     } else {
-      int[][][] mosaickedImageMatrix =
-              new int[height][width][this.getNumberOfChannels()];
+      PixelStorage source = this.getPixelStorage();
+      PixelStorage mosaicked = source.createCompatible(this.getNumberOfChannels());
       List<ClusterPositions> cluster = findCluster(height, width, seed);
+      SeedGrid grid = createSeedGrid(height, width, cluster);
+      ClusterAccumulator sums = new ClusterAccumulator(seed);
 
-      for (int i = 0; i < height; i++) {
-        for (int j = 0; j < width; j++) {
-          int minDistance = findDist(i, j, cluster, seed);
-          cluster.get(minDistance).addCluster(this.getPixelValue(i, j, 0),
-                  this.getPixelValue(i, j, 1), this.getPixelValue(i, j, 2));
+      // each band sums its own pixels, and the partial sums are merged as the bands finish. The
+      // nearest seed of a pixel is looked up again when the clusters are painted, rather than
+      // remembered for every pixel, so that no memory proportional to the image is needed
+      RowBands.forEach(height, width, (startRow, endRow) -> {
+        ClusterAccumulator bandSums = new ClusterAccumulator(seed);
+        int[] red = new int[width];
+        int[] green = new int[width];
+        int[] blue = new int[width];
+        for (int i = startRow; i < endRow; i++) {
+          long index = (long) i * width;
+          source.getSamples(0, index, red, 0, width);
+          source.getSamples(1, index, green, 0, width);
+          source.getSamples(2, index, blue, 0, width);
+          for (int j = 0; j < width; j++) {
+            bandSums.add(grid.findNearest(i, j), red[j], green[j], blue[j]);
+          }
         }
-      }
+        synchronized (sums) {
+          sums.merge(bandSums);
+        }
+      });
 
-      for (int row = 0; row < height; row++) {
-        for (int col = 0; col < width; col++) {
-          int minDistance = findDist(row, col, cluster, seed);
-          mosaickedImageMatrix[row][col][0] = cluster.get(minDistance).calculateAvgRed();
-          mosaickedImageMatrix[row][col][1] = cluster.get(minDistance).calculateAvgGreen();
-          mosaickedImageMatrix[row][col][2] = cluster.get(minDistance).calculateAvgBlue();
+      int[][] averages = sums.calculateAverages();
+      int[] averageRed = averages[0];
+      int[] averageGreen = averages[1];
+      int[] averageBlue = averages[2];
+
+      RowBands.forEach(height, width, (startRow, endRow) -> {
+        int[] mosaicRed = new int[width];
+        int[] mosaicGreen = new int[width];
+        int[] mosaicBlue = new int[width];
+        for (int row = startRow; row < endRow; row++) {
+          long index = (long) row * width;
+          for (int col = 0; col < width; col++) {
+            int label = grid.findNearest(row, col);
+            mosaicRed[col] = averageRed[label];
+            mosaicGreen[col] = averageGreen[label];
+            mosaicBlue[col] = averageBlue[label];
+          }
+          mosaicked.setSamples(0, index, mosaicRed, 0, width);
+          mosaicked.setSamples(1, index, mosaicGreen, 0, width);
+          mosaicked.setSamples(2, index, mosaicBlue, 0, width);
         }
-      }
+      });
       return new ImageVersion3ImplBuilder().setHeight(height).setWidth(width)
-              .setMatrix(mosaickedImageMatrix).build();
+              .setMinimumPixelValue(this.getMinimumPixelValue())
+              .setMaximumPixelValue(this.getMaximumPixelValue())
+              .setNumberOfChannels(mosaicked.getNumberOfChannels())
+              .setPixelStorage(mosaicked).build();
     }
   }
 
 
-  private int findDist(int i, int j, List<ClusterPositions> centroids, int seeds) {
-    ArrayList<Double> distances = new ArrayList<>();
-    for (int k = 0; k < seeds; k++) {
-      distances.add(centroids.get(k).calculateDistance(i, j));
+  // Indexes the seeds of the clusters, so that the nearest seed of a pixel can be found quickly.
+  private SeedGrid createSeedGrid(int height, int width, List<ClusterPositions> cluster) {
+    int[] seedRows = new int[cluster.size()];
+    int[] seedCols = new int[cluster.size()];
+    for (int k = 0; k < cluster.size(); k++) {
+      seedRows[k] = cluster.get(k).getY();
+      seedCols[k] = cluster.get(k).getX();
     }
-    return distances.indexOf(Collections.min(distances));
+    return new SeedGrid(seedRows, seedCols, height, width);
   }
 
   private List<ClusterPositions> findCluster(int height, int width, int seeds) {
@@ -99,7 +136,7 @@ public class ImageVersion3Impl extends ImageVersion2Impl implements ImageVersion
     @Override
     public ImageVersion3 build() {
       return new ImageVersion3Impl(height, width, minimumPixelValue, maximumPixelValue,
-              numberOfChannels, matrix);
+              numberOfChannels, resolvePixelStorage());
     }
   }
 }
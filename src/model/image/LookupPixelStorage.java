@@ -0,0 +1,82 @@
+package model.image;
+
+/**
+ * A read-only pixel storage presenting the samples of another 8 bit storage as mapped through a
+ * lookup table. The samples are mapped as they are read, so creating the storage costs nothing and
+ * further point operations only compose their table with the one of this storage. In exchange every
+ * read pays for the lookups again, and the source storage is kept alive by this one.
+ */
+public class LookupPixelStorage extends AbstractPixelStorage {
+
+  private final PixelStorage source;
+  private final LookupTable table;
+
+  /**
+   * Creates a storage presenting the samples of the given storage mapped through the given table.
+   *
+   * @param source the storage holding the samples to be mapped
+   * @param table the table through which the samples are mapped
+   * @throws IllegalArgumentException if the samples of the source cannot be looked up in a table
+   */
+  public LookupPixelStorage(PixelStorage source, LookupTable table)
+          throws IllegalArgumentException {
+    super(source.getHeight(), source.getWidth(), source.getNumberOfChannels());
+    if (!LookupTable.supports(source.getMaximumSampleValue())) {
+      throw new IllegalArgumentException("Only 8 bit samples can be mapped through a lookup table");
+    }
+    this.source = source;
+    this.table = table;
+  }
+
+  /**
+   * Returns a storage presenting the samples of the same source, mapped through the table of this
+   * storage followed by the given one.
+   *
+   * @param next the table to be applied to the samples of this storage
+   * @return the storage with the composed table
+   */
+  public LookupPixelStorage andThen(LookupTable next) {
+    return new LookupPixelStorage(source, table.andThen(next));
+  }
+
+  @Override
+  public int getMaximumSampleValue() {
+    return source.getMaximumSampleValue();
+  }
+
+  @Override
+  public long getHeapBytes() {
+    return source.getHeapBytes();
+  }
+
+  @Override
+  public int getSample(int channel, long index) {
+    return table.get(source.getSample(channel, index));
+  }
+
+  @Override
+  public void setSample(int channel, long index, int value) {
+    throw new UnsupportedOperationException("Lookup pixel storages are read-only");
+  }
+
+  @Override
+  public void getSamples(int channel, long index, int[] destination, int offset, int length) {
+    source.getSamples(channel, index, destination, offset, length);
+    table.apply(destination, offset, length);
+  }
+
+  @Override
+  public void setSamples(int channel, long index, int[] source, int offset, int length) {
+    throw new UnsupportedOperationException("Lookup pixel storages are read-only");
+  }
+
+  @Override
+  public PixelStorage createCompatible(int numberOfChannels) {
+    return source.createCompatible(numberOfChannels);
+  }
+
+  @Override
+  public PixelStorage selectChannels(int... channels) {
+    return new LookupPixelStorage(source.selectChannels(channels), table);
+  }
+}
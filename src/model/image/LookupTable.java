@@ -0,0 +1,119 @@
+package model.image;
+
+/**
+ * Represents a point operation on 8 bit samples as a table of its 256 results, with the clamping
+ * to the range of valid pixel values already applied. Tables of consecutive operations can be
+ * composed into a single table, so any chain of point operations costs one lookup per sample.
+ *
+ * <p>A table that adds the same amount to every sample and clamps the results, which is what any
+ * chain of brightening operations amounts to, is applied with the brighten kernel of the images
+ * rather than by looking up every sample, as the kernel processes several samples per instruction.
+ */
+public class LookupTable {
+
+  static final int SIZE = 256;
+
+  private final int[] table;
+
+  // The amount added to every sample and the range the results are clamped to, if that is all the
+  // table does; null otherwise.
+  private final int[] brightening;
+
+  /**
+   * Tabulates the given operation, clamping its results to the given range.
+   *
+   * @param operation the point operation to be tabulated
+   * @param minimumValue the smallest allowed result
+   * @param maximumValue the largest allowed result
+   */
+  public LookupTable(PointOp operation, int minimumValue, int maximumValue) {
+    table = new int[SIZE];
+    for (int value = 0; value < SIZE; value++) {
+      table[value] = Math.max(minimumValue, Math.min(operation.apply(value), maximumValue));
+    }
+    brightening = findBrightening(table);
+  }
+
+  private LookupTable(int[] table) {
+    this.table = table;
+    this.brightening = findBrightening(table);
+  }
+
+  // Returns the amount and the range such that every entry of the table is its index plus the
+  // amount, clamped to the range, or null if there are none.
+  private static int[] findBrightening(int[] table) {
+    int low = table[0];
+    int high = table[0];
+    for (int value : table) {
+      low = Math.min(low, value);
+      high = Math.max(high, value);
+    }
+    // the results of such a table rise one by one from the bottom of the range, so the first entry
+    // above the bottom gives the amount
+    int amount = 0;
+    for (int value = 0; value < SIZE; value++) {
+      if (table[value] > low) {
+        amount = table[value] - value;
+        break;
+      }
+    }
+    for (int value = 0; value < SIZE; value++) {
+      if (table[value] != Math.max(low, Math.min(value + amount, high))) {
+        return null;
+      }
+    }
+    return new int[]{amount, low, high};
+  }
+
+  /**
+   * Returns whether samples up to the given value can be looked up in a table.
+   *
+   * @param maximumSampleValue the largest sample value that may be looked up
+   * @return true if the samples are 8 bit ones, false otherwise
+   */
+  public static boolean supports(int maximumSampleValue) {
+    return maximumSampleValue < SIZE;
+  }
+
+  /**
+   * Returns the table of the operation of this table followed by the operation of the given one.
+   *
+   * @param next the table to be applied to the results of this table
+   * @return the composed table
+   */
+  public LookupTable andThen(LookupTable next) {
+    int[] composed = new int[SIZE];
+    for (int value = 0; value < SIZE; value++) {
+      composed[value] = next.table[table[value]];
+    }
+    return new LookupTable(composed);
+  }
+
+  /**
+   * Returns the result of the operation for the given sample.
+   *
+   * @param value the sample, between 0 and 255
+   * @return the result of the operation
+   */
+  public int get(int value) {
+    return table[value];
+  }
+
+  /**
+   * Replaces a run of samples with the results of the operation.
+   *
+   * @param samples the samples, between 0 and 255
+   * @param offset the position of the first sample
+   * @param length the number of samples
+   */
+  public void apply(int[] samples, int offset, int length) {
+    if (brightening != null) {
+      ImageImpl.POINT_KERNELS.brighten(samples, offset, length, brightening[0], brightening[1],
+              brightening[2]);
+      return;
+    }
+    for (int i = offset; i < offset + length; i++) {
+      samples[i] = table[samples[i]];
+    }
+  }
+}
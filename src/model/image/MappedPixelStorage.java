@@ -0,0 +1,241 @@
+package model.image;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A pixel storage whose samples live in a memory-mapped file rather than on the heap. The samples
+ * are interleaved pixel by pixel, one byte per sample up to a maximum value of 255 and two
+ * big-endian bytes per sample above it, which is the layout of the pixel data of raw P6 and P5
+ * files. Such files can therefore be opened in constant time, without reading their pixels.
+ *
+ * <p>Files larger than 2 GB are mapped as several segments of whole rows, and samples are addressed
+ * with long indexes, so an image may have more than 2<sup>31</sup> pixels. The storages created
+ * by {@link #createCompatible(int)} are mapped from new temporary files, so that operations on
+ * mapped images stream their output to disk and images larger than the heap can be processed.
+ * The temporary files are removed as soon as they are mapped where the platform allows it, and
+ * when the JVM exits otherwise. The directory holding them is given by the
+ * {@code imagemanipulator.mapped.dir} system property and defaults to the temporary directory.
+ */
+public class MappedPixelStorage extends AbstractPixelStorage {
+
+  private static final String DIRECTORY_PROPERTY = "imagemanipulator.mapped.dir";
+
+  private final int bytesPerSample;
+  private final int pixelStride;
+  private final int[] channelOffsets;
+  private final int rowsPerSegment;
+  private final MappedByteBuffer[] segments;
+
+  private MappedPixelStorage(int height, int width, int bytesPerSample, int pixelStride,
+                             int[] channelOffsets, int rowsPerSegment,
+                             MappedByteBuffer[] segments) {
+    super(height, width, channelOffsets.length);
+    this.bytesPerSample = bytesPerSample;
+    this.pixelStride = pixelStride;
+    this.channelOffsets = channelOffsets;
+    this.rowsPerSegment = rowsPerSegment;
+    this.segments = segments;
+  }
+
+  /**
+   * Maps the pixel data of a raw P6 or P5 file as a read-only storage. The samples are not
+   * checked against the maximum value of the file.
+   *
+   * @param file the file holding the pixel data
+   * @param offset the position in the file of the first byte of the pixel data
+   * @param height the number of rows
+   * @param width the number of columns
+   * @param numberOfChannels the number of samples stored for each pixel
+   * @param maximumPixelValue the maximum value of the file
+   * @return the storage holding the samples of the file
+   * @throws IOException if the file cannot be mapped or is too short to hold the pixel data
+   */
+  public static MappedPixelStorage open(Path file, long offset, int height, int width,
+                                        int numberOfChannels, int maximumPixelValue)
+          throws IOException {
+    int bytesPerSample = getBytesPerSample(maximumPixelValue);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = (long) height * width * numberOfChannels * bytesPerSample;
+      if (channel.size() < offset + size) {
+        throw new IOException("File is too short to hold " + height + "x" + width + " pixels");
+      }
+      return map(channel, FileChannel.MapMode.READ_ONLY, offset, height, width,
+              numberOfChannels, bytesPerSample);
+    }
+  }
+
+  /**
+   * Maps a new temporary file large enough to hold the samples of an image of the given
+   * dimensions. All samples are initially zero.
+   *
+   * @param height the number of rows
+   * @param width the number of columns
+   * @param numberOfChannels the number of channels
+   * @param maximumPixelValue the largest pixel value the storage has to hold
+   * @return the empty storage
+   * @throws UncheckedIOException if the temporary file cannot be created or mapped
+   */
+  public static MappedPixelStorage allocate(int height, int width, int numberOfChannels,
+                                            int maximumPixelValue) throws UncheckedIOException {
+    int bytesPerSample = getBytesPerSample(maximumPixelValue);
+    try {
+      String directory = System.getProperty(DIRECTORY_PROPERTY,
+              System.getProperty("java.io.tmpdir"));
+      Path file = Files.createTempFile(Paths.get(directory), "image", ".raw");
+      MappedPixelStorage storage;
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+              StandardOpenOption.WRITE)) {
+        storage = map(channel, FileChannel.MapMode.READ_WRITE, 0, height, width,
+                numberOfChannels, bytesPerSample);
+      }
+      try {
+        Files.delete(file);
+      } catch (IOException e) {
+        // the file is in use by the mapping on this platform
+        file.toFile().deleteOnExit();
+      }
+      return storage;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static int getBytesPerSample(int maximumPixelValue) throws IllegalArgumentException {
+    if (maximumPixelValue <= BytePixelStorage.MAXIMUM_SAMPLE_VALUE) {
+      return 1;
+    } else if (maximumPixelValue <= ShortPixelStorage.MAXIMUM_SAMPLE_VALUE) {
+      return 2;
+    }
+    throw new IllegalArgumentException("Pixel values larger than "
+            + ShortPixelStorage.MAXIMUM_SAMPLE_VALUE + " are not supported");
+  }
+
+  private static MappedPixelStorage map(FileChannel channel, FileChannel.MapMode mode,
+                                        long offset, int height, int width, int numberOfChannels,
+                                        int bytesPerSample) throws IOException {
+    long rowBytes = (long) width * numberOfChannels * bytesPerSample;
+    if (rowBytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Rows of " + width + " pixels are too wide to be mapped");
+    }
+    int rowsPerSegment = (int) Math.min(height, Integer.MAX_VALUE / rowBytes);
+    int numberOfSegments = (height + rowsPerSegment - 1) / rowsPerSegment;
+    MappedByteBuffer[] segments = new MappedByteBuffer[numberOfSegments];
+    for (int segment = 0; segment < numberOfSegments; segment++) {
+      int rows = Math.min(rowsPerSegment, height - segment * rowsPerSegment);
+      segments[segment] = channel.map(mode, offset + segment * rowsPerSegment * rowBytes,
+              rows * rowBytes);
+    }
+    int[] channelOffsets = new int[numberOfChannels];
+    for (int channelNumber = 0; channelNumber < numberOfChannels; channelNumber++) {
+      channelOffsets[channelNumber] = channelNumber * bytesPerSample;
+    }
+    return new MappedPixelStorage(height, width, bytesPerSample,
+            numberOfChannels * bytesPerSample, channelOffsets, rowsPerSegment, segments);
+  }
+
+  @Override
+  public int getMaximumSampleValue() {
+    return bytesPerSample == 1 ? BytePixelStorage.MAXIMUM_SAMPLE_VALUE
+            : ShortPixelStorage.MAXIMUM_SAMPLE_VALUE;
+  }
+
+  @Override
+  public long getHeapBytes() {
+    return 0;
+  }
+
+  @Override
+  public int getSample(int channel, long index) {
+    int row = (int) (index / width);
+    MappedByteBuffer segment = segments[row / rowsPerSegment];
+    int position = positionOf(row, (int) (index - (long) row * width)) + channelOffsets[channel];
+    return bytesPerSample == 1 ? segment.get(position) & 0xff
+            : segment.getShort(position) & 0xffff;
+  }
+
+  @Override
+  public void setSample(int channel, long index, int value) {
+    int row = (int) (index / width);
+    MappedByteBuffer segment = segments[row / rowsPerSegment];
+    int position = positionOf(row, (int) (index - (long) row * width)) + channelOffsets[channel];
+    if (bytesPerSample == 1) {
+      segment.put(position, (byte) value);
+    } else {
+      segment.putShort(position, (short) value);
+    }
+  }
+
+  // Returns the position of the first sample of the given pixel within its segment.
+  private int positionOf(int row, int col) {
+    return ((row % rowsPerSegment) * width + col) * pixelStride;
+  }
+
+  @Override
+  public void getSamples(int channel, long index, int[] destination, int offset, int length) {
+    // runs are processed row by row, as consecutive rows may lie in different segments
+    while (length > 0) {
+      int row = (int) (index / width);
+      int col = (int) (index - (long) row * width);
+      int run = Math.min(length, width - col);
+      MappedByteBuffer segment = segments[row / rowsPerSegment];
+      int position = positionOf(row, col) + channelOffsets[channel];
+      if (bytesPerSample == 1) {
+        for (int i = 0; i < run; i++, position += pixelStride) {
+          destination[offset + i] = segment.get(position) & 0xff;
+        }
+      } else {
+        for (int i = 0; i < run; i++, position += pixelStride) {
+          destination[offset + i] = segment.getShort(position) & 0xffff;
+        }
+      }
+      index += run;
+      offset += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public void setSamples(int channel, long index, int[] source, int offset, int length) {
+    while (length > 0) {
+      int row = (int) (index / width);
+      int col = (int) (index - (long) row * width);
+      int run = Math.min(length, width - col);
+      MappedByteBuffer segment = segments[row / rowsPerSegment];
+      int position = positionOf(row, col) + channelOffsets[channel];
+      if (bytesPerSample == 1) {
+        for (int i = 0; i < run; i++, position += pixelStride) {
+          segment.put(position, (byte) source[offset + i]);
+        }
+      } else {
+        for (int i = 0; i < run; i++, position += pixelStride) {
+          segment.putShort(position, (short) source[offset + i]);
+        }
+      }
+      index += run;
+      offset += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public PixelStorage createCompatible(int numberOfChannels) {
+    return allocate(height, width, numberOfChannels, getMaximumSampleValue());
+  }
+
+  @Override
+  public PixelStorage selectChannels(int... channels) {
+    int[] selected = new int[channels.length];
+    for (int i = 0; i < channels.length; i++) {
+      selected[i] = channelOffsets[channels[i]];
+    }
+    return new MappedPixelStorage(height, width, bytesPerSample, pixelStride, selected,
+            rowsPerSegment, segments);
+  }
+}
@@ -0,0 +1,241 @@
+package model.image;
+
+import java.util.List;
+
+/**
+ * Represents the primitive backing store of the pixel values of an image. The samples of each
+ * channel are addressed by their index within the channel, where the index of the pixel at a given
+ * row and column is {@code (long) row * width + col}, so that storages not held in arrays can hold
+ * more than 2<sup>31</sup> pixels. A storage is filled in by the operation creating it
+ * and must be treated as read-only once it has been handed to an image, which allows images to
+ * share their storage (or parts of it) with each other.
+ */
+public interface PixelStorage {
+
+  /**
+   * Returns the number of rows in the storage.
+   *
+   * @return the number of rows in the storage
+   */
+  int getHeight();
+
+  /**
+   * Returns the number of columns in the storage.
+   *
+   * @return the number of columns in the storage
+   */
+  int getWidth();
+
+  /**
+   * Returns the number of channels in the storage.
+   *
+   * @return the number of channels in the storage
+   */
+  int getNumberOfChannels();
+
+  /**
+   * Returns the largest sample value that can be held by the storage.
+   *
+   * @return the largest sample value that can be held by the storage
+   */
+  int getMaximumSampleValue();
+
+  /**
+   * Returns the number of bytes of heap memory taken by the samples of this storage. This includes
+   * the samples of any storage this one presents through a view, which it keeps in memory, and
+   * counts samples shared between channels once. Samples mapped from files take none.
+   *
+   * @return the number of bytes of heap memory taken by the samples
+   */
+  long getHeapBytes();
+
+  /**
+   * Returns the sample at the given index of the given channel.
+   *
+   * @param channel the channel of the sample
+   * @param index the index of the sample within the channel
+   * @return the sample value
+   */
+  int getSample(int channel, long index);
+
+  /**
+   * Sets the sample at the given index of the given channel.
+   *
+   * @param channel the channel of the sample
+   * @param index the index of the sample within the channel
+   * @param value the new sample value
+   */
+  void setSample(int channel, long index, int value);
+
+  /**
+   * Copies a run of consecutive samples of a channel into the given array.
+   *
+   * @param channel the channel to be read
+   * @param index the index of the first sample to be read within the channel
+   * @param destination the array into which the samples are copied
+   * @param offset the position in the destination array of the first sample
+   * @param length the number of samples to be copied
+   */
+  void getSamples(int channel, long index, int[] destination, int offset, int length);
+
+  /**
+   * Copies a run of consecutive samples from the given array into a channel.
+   *
+   * @param channel the channel to be written
+   * @param index the index of the first sample to be written within the channel
+   * @param source the array from which the samples are copied
+   * @param offset the position in the source array of the first sample
+   * @param length the number of samples to be copied
+   */
+  void setSamples(int channel, long index, int[] source, int offset, int length);
+
+  /**
+   * Creates an empty storage with the same dimensions and sample type as this storage.
+   *
+   * @param numberOfChannels the number of channels in the new storage
+   * @return the new storage
+   */
+  PixelStorage createCompatible(int numberOfChannels);
+
+  /**
+   * Returns a storage whose channels are the given channels of this storage, in the given order.
+   * A channel may be selected more than once. Implementations share the underlying samples with
+   * this storage wherever they can.
+   *
+   * @param channels the channels of this storage that make up the new storage
+   * @return the storage made up of the selected channels
+   */
+  PixelStorage selectChannels(int... channels);
+
+  /**
+   * Copies the samples into a matrix indexed by row, column and channel.
+   *
+   * @return the matrix of samples
+   */
+  default int[][][] toMatrix() {
+    int height = getHeight();
+    int width = getWidth();
+    int numberOfChannels = getNumberOfChannels();
+    int[][][] matrix = new int[height][width][numberOfChannels];
+    int[] samples = new int[width];
+    for (int channel = 0; channel < numberOfChannels; channel++) {
+      for (int row = 0; row < height; row++) {
+        getSamples(channel, row * width, samples, 0, width);
+        for (int col = 0; col < width; col++) {
+          matrix[row][col][channel] = samples[col];
+        }
+      }
+    }
+    return matrix;
+  }
+
+  /**
+   * Allocates an empty storage using the narrowest sample type that can hold the given maximum
+   * pixel value, i.e. a byte per sample up to 255 and two bytes per sample up to 65535.
+   *
+   * @param height the number of rows
+   * @param width the number of columns
+   * @param numberOfChannels the number of channels
+   * @param maximumPixelValue the largest pixel value the storage has to hold
+   * @return the empty storage
+   * @throws IllegalArgumentException if the maximum pixel value cannot be stored
+   */
+  static PixelStorage allocate(int height, int width, int numberOfChannels,
+                               int maximumPixelValue) throws IllegalArgumentException {
+    if (maximumPixelValue <= BytePixelStorage.MAXIMUM_SAMPLE_VALUE) {
+      return new BytePixelStorage(height, width, numberOfChannels);
+    } else if (maximumPixelValue <= ShortPixelStorage.MAXIMUM_SAMPLE_VALUE) {
+      return new ShortPixelStorage(height, width, numberOfChannels);
+    }
+    throw new IllegalArgumentException("Pixel values larger than "
+            + ShortPixelStorage.MAXIMUM_SAMPLE_VALUE + " are not supported");
+  }
+
+  /**
+   * Creates a storage holding the values of the given matrix indexed by row, column and channel.
+   *
+   * @param matrix the matrix of pixel values
+   * @param maximumPixelValue the largest pixel value the storage has to hold
+   * @return the storage holding the values of the matrix
+   * @throws IllegalArgumentException if the matrix is empty or any of its values cannot be stored
+   */
+  static PixelStorage fromMatrix(int[][][] matrix, int maximumPixelValue)
+          throws IllegalArgumentException {
+    if (matrix.length == 0 || matrix[0].length == 0) {
+      throw new IllegalArgumentException("Matrix cannot be empty");
+    }
+    int height = matrix.length;
+    int width = matrix[0].length;
+    int numberOfChannels = matrix[0][0].length;
+    PixelStorage storage = allocate(height, width, numberOfChannels, maximumPixelValue);
+    int maximumSampleValue = storage.getMaximumSampleValue();
+    int[] samples = new int[width];
+    for (int channel = 0; channel < numberOfChannels; channel++) {
+      for (int row = 0; row < height; row++) {
+        if (matrix[row].length != width) {
+          throw new IllegalArgumentException("All rows of the matrix must have the same width");
+        }
+        for (int col = 0; col < width; col++) {
+          int value = matrix[row][col][channel];
+          if (value < 0 || value > maximumSampleValue) {
+            throw new IllegalArgumentException("Pixel value " + value + " at (" + row + ", "
+                    + col + ") lies outside the range 0 to " + maximumSampleValue);
+          }
+          samples[col] = value;
+        }
+        storage.setSamples(channel, row * width, samples, 0, width);
+      }
+    }
+    return storage;
+  }
+
+  /**
+   * Creates a storage whose channels are the channels of the given storages, in the given order.
+   * The samples are shared with the given storages when they all use the same planar layout.
+   *
+   * @param storages the storages to be concatenated
+   * @return the storage holding the channels of all the given storages
+   * @throws IllegalArgumentException if the storages do not have the same dimensions
+   */
+  static PixelStorage concatenate(List<PixelStorage> storages) throws IllegalArgumentException {
+    PixelStorage first = storages.get(0);
+    int numberOfChannels = 0;
+    boolean allBytePlanes = true;
+    boolean allShortPlanes = true;
+    for (PixelStorage storage : storages) {
+      if (storage.getHeight() != first.getHeight() || storage.getWidth() != first.getWidth()) {
+        throw new IllegalArgumentException("Cannot concatenate storages of different dimensions");
+      }
+      numberOfChannels += storage.getNumberOfChannels();
+      allBytePlanes &= storage instanceof BytePixelStorage;
+      allShortPlanes &= storage instanceof ShortPixelStorage;
+    }
+    if (allBytePlanes) {
+      return BytePixelStorage.concatenate(storages, numberOfChannels);
+    } else if (allShortPlanes) {
+      return ShortPixelStorage.concatenate(storages, numberOfChannels);
+    }
+
+    // the copy is created like the widest of the storages, so that mapped storages stay mapped
+    PixelStorage widest = first;
+    for (PixelStorage storage : storages) {
+      if (storage.getMaximumSampleValue() > widest.getMaximumSampleValue()) {
+        widest = storage;
+      }
+    }
+    int width = first.getWidth();
+    PixelStorage concatenated = widest.createCompatible(numberOfChannels);
+    int[] samples = new int[width];
+    int channel = 0;
+    for (PixelStorage storage : storages) {
+      for (int sourceChannel = 0; sourceChannel < storage.getNumberOfChannels(); sourceChannel++) {
+        for (int row = 0; row < first.getHeight(); row++) {
+          storage.getSamples(sourceChannel, (long) row * width, samples, 0, width);
+          concatenated.setSamples(channel, (long) row * width, samples, 0, width);
+        }
+        channel++;
+      }
+    }
+    return concatenated;
+  }
+}
@@ -0,0 +1,104 @@
+package model.image;
+
+/**
+ * Represents the inner loops of the operations that compute every output sample from the samples
+ * of the same pixel only, such as brightening, color transformation and the brightness based
+ * greyscale conversions. Each method works on runs of consecutive samples held in primitive arrays,
+ * which lets implementations process several samples per instruction.
+ *
+ * <p>All implementations produce exactly the same values. The implementation used by the images is
+ * chosen once at runtime: the one built on the Java Vector API is used when the
+ * {@code jdk.incubator.vector} module has been added to the JVM and the class is available, and the
+ * scalar one otherwise.
+ */
+public interface PointKernels {
+
+  /**
+   * Adds the given amount to a run of samples, clamping the results to the given range. Images use
+   * this to brighten samples deeper than 8 bits, and to apply the lookup tables of 8 bit samples
+   * that amount to adding an amount and clamping.
+   *
+   * @param samples the samples to be brightened in place
+   * @param offset the position of the first sample to be brightened
+   * @param length the number of samples to be brightened
+   * @param amount the amount to be added to each sample
+   * @param minimumValue the smallest allowed result
+   * @param maximumValue the largest allowed result
+   */
+  void brighten(int[] samples, int offset, int length, int amount, int minimumValue,
+                int maximumValue);
+
+  /**
+   * Multiplies the red, green and blue samples of each pixel by the given 3x3 matrix, clamping the
+   * results to the given range and rounding them to the nearest integer.
+   *
+   * @param red the red samples, replaced by the transformed red samples
+   * @param green the green samples, replaced by the transformed green samples
+   * @param blue the blue samples, replaced by the transformed blue samples
+   * @param length the number of pixels to be transformed
+   * @param transform the color transform matrix
+   * @param minimumValue the smallest allowed result, which must not be negative
+   * @param maximumValue the largest allowed result
+   */
+  void colorTransform(int[] red, int[] green, int[] blue, int length, double[][] transform,
+                      int minimumValue, int maximumValue);
+
+  /**
+   * Computes the weighted sum of the red, green and blue samples of each pixel given by one row of
+   * a fixed-point color matrix, clamping the results to the given range. The samples must be
+   * supported by the matrix.
+   *
+   * @param red the red samples
+   * @param green the green samples
+   * @param blue the blue samples
+   * @param matrix the fixed-point color matrix
+   * @param row the row of the matrix holding the weights
+   * @param result the array receiving the weighted sum of each pixel
+   * @param length the number of pixels
+   * @param minimumValue the smallest allowed result
+   * @param maximumValue the largest allowed result
+   * @see ColorMatrix#supports(int)
+   */
+  void weightedSum(int[] red, int[] green, int[] blue, ColorMatrix matrix, int row, int[] result,
+                   int length, int minimumValue, int maximumValue);
+
+  /**
+   * Computes the luma of each pixel as the rounded weighted sum 0.2126 red + 0.7152 green
+   * + 0.0722 blue.
+   *
+   * @param red the red samples
+   * @param green the green samples
+   * @param blue the blue samples
+   * @param luma the array receiving the luma of each pixel
+   * @param length the number of pixels
+   */
+  void luma(int[] red, int[] green, int[] blue, int[] luma, int length);
+
+  /**
+   * Computes the intensity of each pixel as the rounded average of all its channels.
+   *
+   * @param channels the samples of each channel
+   * @param intensity the array receiving the intensity of each pixel
+   * @param length the number of pixels
+   */
+  void intensity(int[][] channels, int[] intensity, int length);
+
+  /**
+   * Returns the fastest implementation available in the running JVM. The Vector API based
+   * implementation is looked up by name so that this code compiles and runs on JVMs without the
+   * incubator module.
+   *
+   * @return the fastest available implementation
+   */
+  static PointKernels getFastestAvailable() {
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+      try {
+        return (PointKernels) Class.forName("model.image.VectorPointKernels")
+                .getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError e) {
+        // the vectorized kernels have not been compiled into this build
+      }
+    }
+    return new ScalarPointKernels();
+  }
+}
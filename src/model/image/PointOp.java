@@ -0,0 +1,28 @@
+package model.image;
+
+/**
+ * Represents an operation that computes every output sample from the corresponding input sample
+ * alone, such as changing the brightness, the levels or the gamma of an image. The result does not
+ * need to lie within the range of valid pixel values, it is clamped when the operation is turned
+ * into a {@link LookupTable}.
+ */
+public interface PointOp {
+
+  /**
+   * Computes the output sample for the given input sample.
+   *
+   * @param value the input sample
+   * @return the output sample, before clamping
+   */
+  int apply(int value);
+
+  /**
+   * Returns the operation that adds the given amount to every sample.
+   *
+   * @param amount the amount to be added to each sample
+   * @return the brightening operation
+   */
+  static PointOp brighten(int amount) {
+    return value -> value + amount;
+  }
+}
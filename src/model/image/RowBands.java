@@ -0,0 +1,130 @@
+package model.image;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs per-pixel image operations in parallel by splitting the rows of an image into bands that
+ * are processed by the tasks of a fork/join pool. Every output row is computed by exactly one band
+ * using the same code as a sequential run, so the result does not depend on how the rows were
+ * split. The common pool is used unless the {@code imagemanipulator.parallelism} system property
+ * gives the number of threads of a pool of its own, or another pool is set.
+ *
+ * <p>Bands are bounded in size even when they are processed one after the other, so an operation
+ * that keeps a copy of the rows of its band needs memory for a band rather than for the image.
+ */
+public class RowBands {
+
+  // Bands are not split any further once they hold this many samples, so that small images and
+  // thin bands are not drowned in task overhead.
+  private static final int MINIMUM_SAMPLES_PER_BAND = 1 << 15;
+
+  private static final String PARALLELISM_PROPERTY = "imagemanipulator.parallelism";
+
+  private static volatile ForkJoinPool pool = createPool();
+
+  /**
+   * Represents the work done on a band of consecutive rows of an image.
+   */
+  public interface RowBandTask {
+
+    /**
+     * Processes the rows of the band.
+     *
+     * @param startRow the first row of the band, inclusive
+     * @param endRow the last row of the band, exclusive
+     */
+    void process(int startRow, int endRow);
+  }
+
+  // Creates a pool with the parallelism given by the system property, or returns the common pool if
+  // it is not set.
+  private static ForkJoinPool createPool() {
+    Integer parallelism = Integer.getInteger(PARALLELISM_PROPERTY);
+    if (parallelism == null) {
+      return ForkJoinPool.commonPool();
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException(PARALLELISM_PROPERTY + " must be at least 1");
+    }
+    return new ForkJoinPool(parallelism);
+  }
+
+  /**
+   * Sets the pool on which the bands of all subsequent operations are processed. A pool with a
+   * parallelism of 1 makes the operations run sequentially on the calling thread.
+   *
+   * @param forkJoinPool the pool on which the bands are processed
+   */
+  public static void setPool(ForkJoinPool forkJoinPool) {
+    if (forkJoinPool == null) {
+      throw new IllegalArgumentException("Pool cannot be null");
+    }
+    pool = forkJoinPool;
+  }
+
+  /**
+   * Returns the pool on which the bands are processed.
+   *
+   * @return the pool on which the bands are processed
+   */
+  public static ForkJoinPool getPool() {
+    return pool;
+  }
+
+  /**
+   * Processes all the rows of an image of the given dimensions, in bands, and returns once every
+   * band has been processed. The first exception thrown by a band is rethrown.
+   *
+   * @param height the number of rows of the image
+   * @param width the number of columns of the image
+   * @param task the work to be done on each band
+   */
+  public static void forEach(int height, int width, RowBandTask task) {
+    ForkJoinPool forkJoinPool = pool;
+    long samples = (long) height * width;
+    if (samples <= MINIMUM_SAMPLES_PER_BAND) {
+      task.process(0, height);
+      return;
+    }
+    int rowsPerBand = Math.max(1, MINIMUM_SAMPLES_PER_BAND / Math.max(1, width));
+    if (forkJoinPool.getParallelism() == 1) {
+      for (int startRow = 0; startRow < height; startRow += rowsPerBand) {
+        task.process(startRow, Math.min(height, startRow + rowsPerBand));
+      }
+      return;
+    }
+    BandAction action = new BandAction(task, 0, height, rowsPerBand);
+    if (ForkJoinTask.getPool() == forkJoinPool) {
+      action.invoke();
+    } else {
+      forkJoinPool.invoke(action);
+    }
+  }
+
+  private static class BandAction extends RecursiveAction {
+    private final RowBandTask task;
+    private final int startRow;
+    private final int endRow;
+    private final int rowsPerBand;
+
+    BandAction(RowBandTask task, int startRow, int endRow, int rowsPerBand) {
+      this.task = task;
+      this.startRow = startRow;
+      this.endRow = endRow;
+      this.rowsPerBand = rowsPerBand;
+    }
+
+    @Override
+    protected void compute() {
+      if (endRow - startRow <= rowsPerBand) {
+        task.process(startRow, endRow);
+        return;
+      }
+      int middleRow = (startRow + endRow) >>> 1;
+      invokeAll(new BandAction(task, startRow, middleRow, rowsPerBand),
+              new BandAction(task, middleRow, endRow, rowsPerBand));
+    }
+  }
+}
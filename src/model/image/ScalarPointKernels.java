@@ -0,0 +1,64 @@
+package model.image;
+
+/**
+ * Implements the point operation kernels one sample at a time. It is used whenever the Java Vector
+ * API is not available, and is the reference the vectorized kernels must match.
+ */
+public class ScalarPointKernels implements PointKernels {
+
+  @Override
+  public void brighten(int[] samples, int offset, int length, int amount, int minimumValue,
+                       int maximumValue) {
+    for (int i = offset; i < offset + length; i++) {
+      samples[i] = Math.max(minimumValue, Math.min(samples[i] + amount, maximumValue));
+    }
+  }
+
+  @Override
+  public void colorTransform(int[] red, int[] green, int[] blue, int length,
+                             double[][] transform, int minimumValue, int maximumValue) {
+    for (int i = 0; i < length; i++) {
+      int r = red[i];
+      int g = green[i];
+      int b = blue[i];
+
+      double newRed = transform[0][0] * r + transform[0][1] * g + transform[0][2] * b;
+      double newGreen = transform[1][0] * r + transform[1][1] * g + transform[1][2] * b;
+      double newBlue = transform[2][0] * r + transform[2][1] * g + transform[2][2] * b;
+
+      // clamp the resulting values in the range [minimumValue, maximumValue]
+      newRed = Math.min(Math.max(newRed, minimumValue), maximumValue);
+      newGreen = Math.min(Math.max(newGreen, minimumValue), maximumValue);
+      newBlue = Math.min(Math.max(newBlue, minimumValue), maximumValue);
+
+      red[i] = (int) Math.round(newRed);
+      green[i] = (int) Math.round(newGreen);
+      blue[i] = (int) Math.round(newBlue);
+    }
+  }
+
+  @Override
+  public void weightedSum(int[] red, int[] green, int[] blue, ColorMatrix matrix, int row,
+                          int[] result, int length, int minimumValue, int maximumValue) {
+    matrix.applyRow(red, green, blue, row, result, length, minimumValue, maximumValue);
+  }
+
+  @Override
+  public void luma(int[] red, int[] green, int[] blue, int[] luma, int length) {
+    for (int i = 0; i < length; i++) {
+      luma[i] = (int) Math.round(0.2126 * red[i] + 0.7152 * green[i] + 0.0722 * blue[i]);
+    }
+  }
+
+  @Override
+  public void intensity(int[][] channels, int[] intensity, int length) {
+    int numberOfChannels = channels.length;
+    for (int i = 0; i < length; i++) {
+      long sum = 0;
+      for (int channel = 0; channel < numberOfChannels; channel++) {
+        sum += channels[channel][i];
+      }
+      intensity[i] = (int) Math.round((double) sum / numberOfChannels);
+    }
+  }
+}
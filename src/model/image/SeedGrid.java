@@ -0,0 +1,117 @@
+package model.image;
+
+/**
+ * Finds the seed nearest to a pixel among a set of seed pixels, using a uniform grid of buckets
+ * over the image. The grid is sized so that each bucket holds about two seeds, and a query only
+ * visits the rings of buckets around the pixel that may still hold a closer seed, so its cost does
+ * not grow with the number of seeds.
+ *
+ * <p>Distances are compared exactly as squared Euclidean distances, and of two seeds at the same
+ * distance the one with the smaller index is chosen, so the result is the same as that of a linear
+ * scan over all the seeds.
+ */
+public class SeedGrid {
+
+  private static final int SEEDS_PER_CELL = 2;
+
+  private final int[] seedRows;
+  private final int[] seedCols;
+  private final int cellSize;
+  private final int gridRows;
+  private final int gridCols;
+  private final int[] cellStart;
+  private final int[] cellSeeds;
+
+  /**
+   * Builds the grid over the given seeds.
+   *
+   * @param seedRows the row of each seed
+   * @param seedCols the column of each seed
+   * @param height the number of rows in the image
+   * @param width the number of columns in the image
+   * @throws IllegalArgumentException if there are no seeds or a seed lies outside the image
+   */
+  public SeedGrid(int[] seedRows, int[] seedCols, int height, int width)
+          throws IllegalArgumentException {
+    int seeds = seedRows.length;
+    if (seeds == 0 || seedCols.length != seeds) {
+      throw new IllegalArgumentException("Invalid seeds");
+    }
+    this.seedRows = seedRows;
+    this.seedCols = seedCols;
+    double pixelsPerCell = (double) height * width * SEEDS_PER_CELL / seeds;
+    cellSize = (int) Math.max(1, Math.min(Math.max(height, width), Math.sqrt(pixelsPerCell)));
+    gridRows = (height + cellSize - 1) / cellSize;
+    gridCols = (width + cellSize - 1) / cellSize;
+
+    // bucket the seeds by cell with a counting sort, which keeps each bucket in seed order
+    cellStart = new int[gridRows * gridCols + 1];
+    for (int seed = 0; seed < seeds; seed++) {
+      if (seedRows[seed] < 0 || seedRows[seed] >= height || seedCols[seed] < 0
+              || seedCols[seed] >= width) {
+        throw new IllegalArgumentException("Seed lies outside the image");
+      }
+      cellStart[cellOf(seedRows[seed], seedCols[seed]) + 1]++;
+    }
+    for (int cell = 0; cell < gridRows * gridCols; cell++) {
+      cellStart[cell + 1] += cellStart[cell];
+    }
+    cellSeeds = new int[seeds];
+    int[] next = cellStart.clone();
+    for (int seed = 0; seed < seeds; seed++) {
+      cellSeeds[next[cellOf(seedRows[seed], seedCols[seed])]++] = seed;
+    }
+  }
+
+  private int cellOf(int row, int col) {
+    return (row / cellSize) * gridCols + col / cellSize;
+  }
+
+  /**
+   * Returns the index of the seed nearest to the given pixel.
+   *
+   * @param row the row of the pixel
+   * @param col the column of the pixel
+   * @return the index of the nearest seed
+   */
+  public int findNearest(int row, int col) {
+    int cellRow = row / cellSize;
+    int cellCol = col / cellSize;
+    int maximumRing = Math.max(Math.max(cellRow, gridRows - 1 - cellRow),
+            Math.max(cellCol, gridCols - 1 - cellCol));
+    int nearest = -1;
+    long nearestDistance = Long.MAX_VALUE;
+
+    for (int ring = 0; ring <= maximumRing; ring++) {
+      int top = cellRow - ring;
+      int bottom = cellRow + ring;
+      for (int gridRow = Math.max(0, top); gridRow <= Math.min(gridRows - 1, bottom); gridRow++) {
+        // only the border of the ring is new, the inside has been searched already
+        boolean wholeRow = gridRow == top || gridRow == bottom;
+        int step = wholeRow ? 1 : Math.max(1, 2 * ring);
+        for (int gridCol = cellCol - ring; gridCol <= cellCol + ring; gridCol += step) {
+          if (gridCol < 0 || gridCol >= gridCols) {
+            continue;
+          }
+          int cell = gridRow * gridCols + gridCol;
+          for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+            int seed = cellSeeds[i];
+            long rowDistance = seedRows[seed] - row;
+            long colDistance = seedCols[seed] - col;
+            long distance = rowDistance * rowDistance + colDistance * colDistance;
+            if (distance < nearestDistance || (distance == nearestDistance && seed < nearest)) {
+              nearest = seed;
+              nearestDistance = distance;
+            }
+          }
+        }
+      }
+      // every seed beyond this ring is at least ring * cellSize + 1 pixels away along some axis
+      long reach = (long) ring * cellSize + 1;
+      if (nearest >= 0 && nearestDistance < reach * reach) {
+        break;
+      }
+    }
+    return nearest;
+  }
+}
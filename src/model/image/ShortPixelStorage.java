@@ -0,0 +1,113 @@
+package model.image;
+
+import java.util.List;
+
+/**
+ * A planar pixel storage holding each sample in an unsigned 16-bit value. It is used for images
+ * whose pixel values exceed 255, such as PPM files with a maximum value of up to 65535. Each
+ * channel is kept in its own flat array of {@code height * width} samples.
+ */
+public class ShortPixelStorage extends AbstractPixelStorage {
+
+  static final int MAXIMUM_SAMPLE_VALUE = 0xffff;
+
+  private final short[][] planes;
+
+  /**
+   * Allocates a storage with all samples set to zero.
+   *
+   * @param height the number of rows
+   * @param width the number of columns
+   * @param numberOfChannels the number of channels
+   */
+  public ShortPixelStorage(int height, int width, int numberOfChannels) {
+    super(height, width, numberOfChannels);
+    checkArraySize(height, width);
+    this.planes = new short[numberOfChannels][height * width];
+  }
+
+  private ShortPixelStorage(int height, int width, short[][] planes) {
+    super(height, width, planes.length);
+    this.planes = planes;
+  }
+
+  @Override
+  public int getMaximumSampleValue() {
+    return MAXIMUM_SAMPLE_VALUE;
+  }
+
+  @Override
+  public long getHeapBytes() {
+    long bytes = 0;
+    for (int channel = 0; channel < planes.length; channel++) {
+      if (isFirstUse(channel)) {
+        bytes += (long) planes[channel].length * Short.BYTES;
+      }
+    }
+    return bytes;
+  }
+
+  // Returns whether the plane of the given channel is not also the plane of an earlier channel.
+  private boolean isFirstUse(int channel) {
+    for (int earlier = 0; earlier < channel; earlier++) {
+      if (planes[earlier] == planes[channel]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int getSample(int channel, long index) {
+    return planes[channel][(int) index] & 0xffff;
+  }
+
+  @Override
+  public void setSample(int channel, long index, int value) {
+    planes[channel][(int) index] = (short) value;
+  }
+
+  @Override
+  public void getSamples(int channel, long index, int[] destination, int offset, int length) {
+    short[] plane = planes[channel];
+    int start = (int) index;
+    for (int i = 0; i < length; i++) {
+      destination[offset + i] = plane[start + i] & 0xffff;
+    }
+  }
+
+  @Override
+  public void setSamples(int channel, long index, int[] source, int offset, int length) {
+    short[] plane = planes[channel];
+    int start = (int) index;
+    for (int i = 0; i < length; i++) {
+      plane[start + i] = (short) source[offset + i];
+    }
+  }
+
+  @Override
+  public PixelStorage createCompatible(int numberOfChannels) {
+    return new ShortPixelStorage(height, width, numberOfChannels);
+  }
+
+  @Override
+  public PixelStorage selectChannels(int... channels) {
+    short[][] selected = new short[channels.length][];
+    for (int i = 0; i < channels.length; i++) {
+      selected[i] = planes[channels[i]];
+    }
+    return new ShortPixelStorage(height, width, selected);
+  }
+
+  static PixelStorage concatenate(List<PixelStorage> storages, int numberOfChannels) {
+    short[][] concatenated = new short[numberOfChannels][];
+    int channel = 0;
+    for (PixelStorage storage : storages) {
+      for (short[] plane : ((ShortPixelStorage) storage).planes) {
+        concatenated[channel++] = plane;
+      }
+    }
+    PixelStorage first = storages.get(0);
+    return new ShortPixelStorage(first.getHeight(), first.getWidth(), concatenated);
+  }
+}
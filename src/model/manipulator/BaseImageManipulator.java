@@ -1,23 +1,97 @@
 package model.manipulator;
 
+import java.util.List;
+import java.util.function.Supplier;
+
 import model.storage.ImageDB;
 import model.exceptions.ImageNotFoundException;
 import model.storage.ImageStorage;
+import model.storage.ImageSupplier;
+import model.storage.StorageStatistics;
 import model.image.Image;
 
 /**
  * Contains the code common to all image manipulators, i.e. loading and saving an image to an image
- * storage.
+ * storage, and remembering the results of operations so that repeated operations are not computed
+ * again. Every operation is reported to the Java Flight Recorder as an {@link ImageOperationEvent}.
  */
 public abstract class BaseImageManipulator implements ImageStorage {
 
   protected final ImageStorage imageDatabase;
+  protected final ResultCache resultCache;
+  private final boolean ownsResultCache;
 
   /**
    * Initializes the storage object.
    */
   public BaseImageManipulator() {
-    this.imageDatabase = new ImageDB();
+    this(new ImageDB());
+  }
+
+  /**
+   * Uses the given storage, which may be shared with other image manipulators.
+   *
+   * @param imageDatabase the storage holding the images
+   */
+  public BaseImageManipulator(ImageStorage imageDatabase) {
+    this(imageDatabase, new ResultCache(imageDatabase), true);
+  }
+
+  /**
+   * Uses the given storage, which may be shared with other image manipulators, and remembers the
+   * results of operations in the given cache, which may be shared as well.
+   *
+   * @param imageDatabase the storage holding the images
+   * @param resultCache the cache remembering the results of operations
+   */
+  public BaseImageManipulator(ImageStorage imageDatabase, ResultCache resultCache) {
+    this(imageDatabase, resultCache, false);
+  }
+
+  private BaseImageManipulator(ImageStorage imageDatabase, ResultCache resultCache,
+                               boolean ownsResultCache) {
+    this.imageDatabase = imageDatabase;
+    this.resultCache = resultCache;
+    this.ownsResultCache = ownsResultCache;
+  }
+
+  /**
+   * Applies an operation to the given image, or returns its stored result if the same operation
+   * has been applied to the image with the same parameters before.
+   *
+   * @param source the image the operation is applied to
+   * @param operation the name of the operation
+   * @param computation computes the result of the operation
+   * @param parameters the parameters of the operation
+   * @return the result of the operation
+   */
+  protected Image apply(Image source, String operation, Supplier<Image> computation,
+                        Object... parameters) {
+    ImageOperationEvent event = new ImageOperationEvent();
+    event.begin();
+    Image result = resultCache.computeIfAbsent(source, operation, computation, parameters);
+    event.report(operation, List.of(source));
+    return result;
+  }
+
+  /**
+   * Applies an operation to the given images, or returns its stored results if the same operation
+   * has been applied to the same images with the same parameters before.
+   *
+   * @param sources the images the operation is applied to
+   * @param operation the name of the operation
+   * @param computation computes the results of the operation
+   * @param parameters the parameters of the operation
+   * @return the results of the operation
+   */
+  protected List<Image> apply(List<Image> sources, String operation,
+                              Supplier<List<Image>> computation, Object... parameters) {
+    ImageOperationEvent event = new ImageOperationEvent();
+    event.begin();
+    List<Image> results = resultCache.computeIfAbsent(sources, operation, computation,
+            parameters);
+    event.report(operation, sources);
+    return results;
   }
 
   @Override
@@ -29,4 +103,42 @@ public abstract class BaseImageManipulator implements ImageStorage {
   public void putImage(String imageName, Image image) {
     imageDatabase.putImage(imageName, image);
   }
+
+  @Override
+  public void removeImage(String imageName) {
+    imageDatabase.removeImage(imageName);
+  }
+
+  @Override
+  public Image computeImageIfAbsent(String imageName, ImageSupplier supplier)
+          throws ImageNotFoundException {
+    return imageDatabase.computeImageIfAbsent(imageName, supplier);
+  }
+
+  @Override
+  public StorageStatistics getStatistics() {
+    return imageDatabase.getStatistics();
+  }
+
+  /**
+   * Returns a snapshot of the counters of the cache remembering the results of operations.
+   *
+   * @return the current counters of the cache
+   */
+  public CacheStatistics getCacheStatistics() {
+    return resultCache.getStatistics();
+  }
+
+  /**
+   * Closes the storage of this manipulator, which must therefore not be shared with a manipulator
+   * that is still in use. A cache given to this manipulator is left as it is, as other manipulators
+   * may be using it; its entries for the images of the storage go once they have been collected.
+   */
+  @Override
+  public void close() {
+    if (ownsResultCache) {
+      resultCache.clear();
+    }
+    imageDatabase.close();
+  }
 }
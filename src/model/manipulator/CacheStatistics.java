@@ -0,0 +1,69 @@
+package model.manipulator;
+
+/**
+ * A snapshot of the counters of the cache remembering the results of image operations.
+ */
+public class CacheStatistics {
+
+  private final long hits;
+  private final long misses;
+  private final long weight;
+  private final long byteBudget;
+
+  /**
+   * Creates a snapshot of the given counters.
+   *
+   * @param hits the number of operations whose result was found in the cache
+   * @param misses the number of operations whose result had to be computed
+   * @param weight the estimated size of the entries held by the cache
+   * @param byteBudget the size the entries are kept within
+   */
+  public CacheStatistics(long hits, long misses, long weight, long byteBudget) {
+    this.hits = hits;
+    this.misses = misses;
+    this.weight = weight;
+    this.byteBudget = byteBudget;
+  }
+
+  /**
+   * Returns the number of operations whose result was found in the cache.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of operations whose result had to be computed.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns the estimated size in bytes of the entries held by the cache, counting both their
+   * sources and their results.
+   *
+   * @return the number of bytes held
+   */
+  public long getWeight() {
+    return weight;
+  }
+
+  /**
+   * Returns the size in bytes the entries of the cache are kept within.
+   *
+   * @return the byte budget
+   */
+  public long getByteBudget() {
+    return byteBudget;
+  }
+
+  @Override
+  public String toString() {
+    return "hits=" + hits + " misses=" + misses + " held=" + weight + "/" + byteBudget + " bytes";
+  }
+}
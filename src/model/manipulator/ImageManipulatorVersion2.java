@@ -65,5 +65,12 @@ public interface ImageManipulatorVersion2 extends ImageStorage {
    */
   void combine(List<String> imageNames, String combinedImageName) throws ImageNotFoundException;
 
+  /**
+   * Returns a snapshot of the counters of the cache remembering the results of operations.
+   *
+   * @return the current counters of the cache
+   */
+  CacheStatistics getCacheStatistics();
+
 
 }
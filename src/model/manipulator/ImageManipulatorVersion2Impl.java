@@ -6,6 +6,7 @@ import java.util.stream.IntStream;
 
 import model.exceptions.ImageNotFoundException;
 import model.image.Image;
+import model.storage.ImageStorage;
 import utils.Component;
 import utils.FlipDirection;
 
@@ -24,32 +25,56 @@ public class ImageManipulatorVersion2Impl extends BaseImageManipulator
     super();
   }
 
+  /**
+   * Initializes the image manipulator with the given storage, which may be shared with other
+   * image manipulators.
+   *
+   * @param imageDatabase the storage holding the images
+   */
+  public ImageManipulatorVersion2Impl(ImageStorage imageDatabase) {
+    super(imageDatabase);
+  }
+
+  /**
+   * Initializes the image manipulator with the given storage, which may be shared with other
+   * image manipulators, remembering the results of operations in the given cache.
+   *
+   * @param imageDatabase the storage holding the images
+   * @param resultCache the cache remembering the results of operations
+   */
+  public ImageManipulatorVersion2Impl(ImageStorage imageDatabase, ResultCache resultCache) {
+    super(imageDatabase, resultCache);
+  }
+
   @Override
   public void brighten(String originalImageName, int amount, String brightenedImageName)
           throws ImageNotFoundException {
     Image image = imageDatabase.getImage(originalImageName);
-    imageDatabase.putImage(brightenedImageName, image.brighten(amount));
+    imageDatabase.putImage(brightenedImageName, apply(image, "brighten",
+            () -> image.brighten(amount), amount));
   }
 
   @Override
   public void flip(String originalImageName, FlipDirection flipDirection, String flippedImageName)
           throws ImageNotFoundException {
     Image image = imageDatabase.getImage(originalImageName);
-    imageDatabase.putImage(flippedImageName, image.flip(flipDirection));
+    imageDatabase.putImage(flippedImageName, apply(image, "flip",
+            () -> image.flip(flipDirection), flipDirection));
   }
 
   @Override
   public void greyScale(String originalImageName, Component component, String greyscaleImageName)
           throws ImageNotFoundException {
     Image image = imageDatabase.getImage(originalImageName);
-    imageDatabase.putImage(greyscaleImageName, image.greyScale(component));
+    imageDatabase.putImage(greyscaleImageName, apply(image, "greyscale",
+            () -> image.greyScale(component), component));
   }
 
   @Override
   public void split(String originalImageName, List<String> splitImageNames)
           throws ImageNotFoundException {
     Image image = imageDatabase.getImage(originalImageName);
-    List<Image> splitImages = image.split();
+    List<Image> splitImages = apply(List.of(image), "split", image::split);
 
     IntStream.range(0, Math.min(splitImageNames.size(), splitImages.size()))
             .parallel()
@@ -68,7 +93,8 @@ public class ImageManipulatorVersion2Impl extends BaseImageManipulator
       Image image = imageDatabase.getImage(imageName);
       images.add(image);
     }
-    imageDatabase.putImage(combinedImageName, images.get(0)
-            .combine(images.subList(1, images.size())));
+    // combine inserts the first image into the list it is given, so it is given a copy
+    imageDatabase.putImage(combinedImageName, apply(images, "combine", () -> List.of(images.get(0)
+            .combine(new ArrayList<>(images.subList(1, images.size()))))).get(0));
   }
 }
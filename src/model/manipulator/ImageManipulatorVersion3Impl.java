@@ -5,6 +5,7 @@ import model.exceptions.ImageNotFoundException;
 import model.image.Image;
 import model.image.ImageVersion2;
 import model.image.ImageVersion2Impl;
+import model.storage.ImageStorage;
 
 /**
  * This class offers support to additional manipulation operations on an image such as
@@ -20,12 +21,34 @@ public class ImageManipulatorVersion3Impl extends ImageManipulatorVersion2Impl i
     super();
   }
 
+  /**
+   * Initializes the image manipulator with the given storage, which may be shared with other
+   * image manipulators.
+   *
+   * @param imageDatabase the storage holding the images
+   */
+  public ImageManipulatorVersion3Impl(ImageStorage imageDatabase) {
+    super(imageDatabase);
+  }
+
+  /**
+   * Initializes the image manipulator with the given storage, which may be shared with other
+   * image manipulators, remembering the results of operations in the given cache.
+   *
+   * @param imageDatabase the storage holding the images
+   * @param resultCache the cache remembering the results of operations
+   */
+  public ImageManipulatorVersion3Impl(ImageStorage imageDatabase, ResultCache resultCache) {
+    super(imageDatabase, resultCache);
+  }
+
   @Override
   public void filter(String originalImageName, double[][] kernel, String filteredImageName)
           throws ImageNotFoundException {
     Image image = imageDatabase.getImage(originalImageName);
     ImageVersion2 imageVersion2 = getImageVersion2Object(image);
-    imageDatabase.putImage(filteredImageName, imageVersion2.filter(kernel));
+    imageDatabase.putImage(filteredImageName, apply(image, "filter",
+            () -> imageVersion2.filter(kernel), (Object) kernel));
   }
 
   @Override
@@ -33,7 +56,8 @@ public class ImageManipulatorVersion3Impl extends ImageManipulatorVersion2Impl i
                              String colorTransformedImageName) throws ImageNotFoundException {
     Image image = imageDatabase.getImage(originalImageName);
     ImageVersion2 imageVersion2 = getImageVersion2Object(image);
-    imageDatabase.putImage(colorTransformedImageName, imageVersion2.colorTransform(transform));
+    imageDatabase.putImage(colorTransformedImageName, apply(image,
+            "color-transform", () -> imageVersion2.colorTransform(transform), (Object) transform));
   }
 
   @Override
@@ -41,29 +65,19 @@ public class ImageManipulatorVersion3Impl extends ImageManipulatorVersion2Impl i
           throws ImageNotFoundException {
     Image image = imageDatabase.getImage(originalImageName);
     ImageVersion2 imageVersion2 = getImageVersion2Object(image);
-    imageDatabase.putImage(ditheredImageName, imageVersion2.dither(channel));
+    imageDatabase.putImage(ditheredImageName, apply(image, "dither",
+            () -> imageVersion2.dither(channel), channel));
   }
 
 
+  // Exposes the additional operations of the given image without copying its pixel values.
   protected ImageVersion2 getImageVersion2Object(Image image) {
-    int height = image.getHeight();
-    int width = image.getWidth();
-    int channels = image.getNumberOfChannels();
-    int[][][] imageMatrix = new int[height][width][channels];
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        for (int c = 0; c < channels; c++) {
-          imageMatrix[i][j][c] = image.getPixelValue(i,j,c);
-        }
-      }
+    if (image instanceof ImageVersion2) {
+      return (ImageVersion2) image;
     }
-
     return (ImageVersion2) new ImageVersion2Impl
             .ImageVersion2ImplBuilder()
-            .setHeight(height)
-            .setWidth(width)
-            .setMatrix(imageMatrix)
-            .setNumberOfChannels(channels)
+            .setSourceImage(image)
             .build();
   }
 }
@@ -1,9 +1,12 @@
 package model.manipulator;
 
+import java.util.List;
+
 import model.exceptions.ImageNotFoundException;
 import model.image.Image;
 import model.image.ImageVersion3;
 import model.image.ImageVersion3Impl;
+import model.storage.ImageStorage;
 
 /**
  * This class implements the ImageManipulatorVersion4 interface. This class wil perform the
@@ -19,33 +22,48 @@ public class ImageManipulatorVersion4Impl extends ImageManipulatorVersion3Impl
     super();
   }
 
+  /**
+   * Initializes the image manipulator with the given storage, which may be shared with other
+   * image manipulators.
+   *
+   * @param imageDatabase the storage holding the images
+   */
+  public ImageManipulatorVersion4Impl(ImageStorage imageDatabase) {
+    super(imageDatabase);
+  }
+
+  /**
+   * Initializes the image manipulator with the given storage, which may be shared with other
+   * image manipulators, remembering the results of operations in the given cache.
+   *
+   * @param imageDatabase the storage holding the images
+   * @param resultCache the cache remembering the results of operations
+   */
+  public ImageManipulatorVersion4Impl(ImageStorage imageDatabase, ResultCache resultCache) {
+    super(imageDatabase, resultCache);
+  }
+
   @Override
   public void mosaic(String originalImageName, int seed, String mosaicImageName)
           throws ImageNotFoundException {
     Image image = imageDatabase.getImage(originalImageName);
     ImageVersion3 imageVersion3 = getImageVersion3Object(image);
-    imageDatabase.putImage(mosaicImageName, imageVersion3.mosaic(seed));
+    // mosaics are not cached, as their seeds are placed at random
+    ImageOperationEvent event = new ImageOperationEvent();
+    event.begin();
+    Image mosaic = imageVersion3.mosaic(seed);
+    event.report("mosaic", List.of(image));
+    imageDatabase.putImage(mosaicImageName, mosaic);
   }
 
+  // Exposes the additional operations of the given image without copying its pixel values.
   private ImageVersion3 getImageVersion3Object(Image image) {
-    int height = image.getHeight();
-    int width = image.getWidth();
-    int channels = image.getNumberOfChannels();
-    int[][][] imageMatrix = new int[height][width][channels];
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        for (int c = 0; c < channels; c++) {
-          imageMatrix[i][j][c] = image.getPixelValue(i,j,c);
-        }
-      }
+    if (image instanceof ImageVersion3) {
+      return (ImageVersion3) image;
     }
-
     return (ImageVersion3) new ImageVersion3Impl
             .ImageVersion3ImplBuilder()
-            .setHeight(height)
-            .setWidth(width)
-            .setMatrix(imageMatrix)
-            .setNumberOfChannels(channels)
+            .setSourceImage(image)
             .build();
   }
 }
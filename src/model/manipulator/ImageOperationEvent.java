@@ -0,0 +1,69 @@
+package model.manipulator;
+
+import java.util.List;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import model.image.Image;
+
+/**
+ * A Java Flight Recorder event reporting an operation applied by an image manipulator, with the
+ * dimensions of the image it was applied to. Operations whose result was found in the result cache
+ * are reported as well, with the time it took to find it. The event costs next to nothing unless a
+ * recording that enables it is running.
+ */
+@Name("imagemanipulator.ImageOperation")
+@Label("Image Operation")
+@Category("Image Manipulator")
+@Description("An operation applied to an image by an image manipulator")
+@StackTrace(false)
+public class ImageOperationEvent extends Event {
+
+  @Label("Operation")
+  private String operation;
+
+  @Label("Height")
+  private int height;
+
+  @Label("Width")
+  private int width;
+
+  @Label("Channels")
+  @Description("The number of channels of all the source images together")
+  private int channels;
+
+  @Label("Bytes Processed")
+  @Description("The size of the samples of all the source images")
+  @DataAmount
+  private long bytesProcessed;
+
+  /**
+   * Ends the event and commits it with the given operation and source images, if the event is
+   * enabled and lasted longer than its threshold. The height and width are those of the first
+   * source image.
+   *
+   * @param operation the name of the operation
+   * @param sources the images the operation was applied to
+   */
+  public void report(String operation, List<Image> sources) {
+    end();
+    if (!shouldCommit()) {
+      return;
+    }
+    this.operation = operation;
+    this.height = sources.get(0).getHeight();
+    this.width = sources.get(0).getWidth();
+    for (Image source : sources) {
+      channels += source.getNumberOfChannels();
+      bytesProcessed += (long) source.getHeight() * source.getWidth()
+              * source.getNumberOfChannels() * (source.getMaximumPixelValue() > 255 ? 2 : 1);
+    }
+    commit();
+  }
+}
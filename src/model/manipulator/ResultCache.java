@@ -0,0 +1,286 @@
+package model.manipulator;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Supplier;
+
+import model.image.Image;
+import model.storage.ImageStorage;
+
+/**
+ * Remembers the results of image operations, so that repeating an operation with the same
+ * arguments on the same images returns the stored result instead of computing it again. Results
+ * are keyed on the identity of the source images, which never change once created, together with
+ * the name of the operation and its parameters.
+ *
+ * <p>The cache does not keep images in memory by itself. Source images are held weakly, so an
+ * entry is dropped once its sources are not used anywhere else, for instance after they have been
+ * removed from the storage or spilled to disk. Results are held softly, so the garbage collector
+ * reclaims them before running out of memory.
+ *
+ * <p>The size of an entry is the heap memory held by the pixel values of its sources and of its
+ * results, where a result that is a view of its source counts the pixel values it reads. The least
+ * recently used entries are dropped once the entries together exceed the budget of the cache. The
+ * budget is given in bytes by the {@code imagemanipulator.cache.budget} system property. By default
+ * it is an eighth of the maximum heap, or 0 for a storage that keeps only part of its images in
+ * memory, which the cache would otherwise keep from spilling images. A budget of 0 disables
+ * caching.
+ */
+public class ResultCache {
+
+  private static final String BUDGET_PROPERTY = "imagemanipulator.cache.budget";
+
+  private final long byteBudget;
+  private final LinkedHashMap<Key, Entry> entries;
+  private final ReferenceQueue<Object> clearedReferences;
+  private long weight;
+  private long hits;
+  private long misses;
+
+  // Source images are compared by identity, and parameters by value, including arrays. A key whose
+  // sources have been collected is only equal to itself.
+  private static class Key {
+    private final List<SourceReference> sources;
+    private final String operation;
+    private final Object[] parameters;
+    private final int hash;
+
+    private Key(List<Image> sources, String operation, Object[] parameters,
+                ReferenceQueue<Object> queue) {
+      this.sources = new ArrayList<>(sources.size());
+      this.operation = operation;
+      this.parameters = parameters;
+      int sourceHash = 1;
+      for (Image source : sources) {
+        this.sources.add(new SourceReference(source, this, queue));
+        sourceHash = 31 * sourceHash + System.identityHashCode(source);
+      }
+      this.hash = (sourceHash * 31 + operation.hashCode()) * 31 + Arrays.deepHashCode(parameters);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      if (hash != key.hash || !operation.equals(key.operation)
+              || sources.size() != key.sources.size()) {
+        return false;
+      }
+      for (int i = 0; i < sources.size(); i++) {
+        Image source = sources.get(i).get();
+        if (source == null || source != key.sources.get(i).get()) {
+          return false;
+        }
+      }
+      return Arrays.deepEquals(parameters, key.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  // A source image of an entry, whose entry is dropped once the image has been collected.
+  private static class SourceReference extends WeakReference<Image> {
+    private final Key key;
+
+    private SourceReference(Image source, Key key, ReferenceQueue<Object> queue) {
+      super(source, queue);
+      this.key = key;
+    }
+  }
+
+  // The results of an operation, which are dropped from the cache once they have been collected.
+  private static class Entry extends SoftReference<List<Image>> {
+    private final Key key;
+    private final long weight;
+
+    private Entry(List<Image> results, Key key, long weight, ReferenceQueue<Object> queue) {
+      super(results, queue);
+      this.key = key;
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * Creates a cache holding entries of at most about the given number of bytes.
+   *
+   * @param byteBudget the number of bytes the entries are kept within
+   */
+  public ResultCache(long byteBudget) {
+    this.byteBudget = byteBudget;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    this.clearedReferences = new ReferenceQueue<>();
+  }
+
+  /**
+   * Creates a cache with the budget given by the {@code imagemanipulator.cache.budget} system
+   * property, or an eighth of the maximum heap if it is not set.
+   */
+  public ResultCache() {
+    this(Long.getLong(BUDGET_PROPERTY, Runtime.getRuntime().maxMemory() / 8));
+  }
+
+  /**
+   * Creates a cache for the results of operations on images held by the given storage, with the
+   * budget given by the {@code imagemanipulator.cache.budget} system property. If it is not set,
+   * the budget is an eighth of the maximum heap when the storage keeps all its images in memory,
+   * and the cache is disabled otherwise.
+   *
+   * @param storage the storage holding the images the operations are applied to
+   */
+  public ResultCache(ImageStorage storage) {
+    this(Long.getLong(BUDGET_PROPERTY,
+            storage.getStatistics() == null ? Runtime.getRuntime().maxMemory() / 8 : 0));
+  }
+
+  /**
+   * Returns the stored result of the given operation on the given image, computing and storing it
+   * first if there is none.
+   *
+   * @param source the image the operation is applied to
+   * @param operation the name of the operation
+   * @param computation the computation of the result, used only if it is not stored
+   * @param parameters the parameters of the operation
+   * @return the result of the operation
+   */
+  public Image computeIfAbsent(Image source, String operation, Supplier<Image> computation,
+                               Object... parameters) {
+    return computeIfAbsent(Collections.singletonList(source), operation,
+            () -> Collections.singletonList(computation.get()), parameters).get(0);
+  }
+
+  /**
+   * Returns the stored results of the given operation on the given images, computing and storing
+   * them first if there are none. Concurrent callers may compute the same results, in which case
+   * the ones stored first are kept.
+   *
+   * @param sources the images the operation is applied to
+   * @param operation the name of the operation
+   * @param computation the computation of the results, used only if they are not stored
+   * @param parameters the parameters of the operation
+   * @return the results of the operation
+   */
+  public List<Image> computeIfAbsent(List<Image> sources, String operation,
+                                     Supplier<List<Image>> computation, Object... parameters) {
+    if (byteBudget <= 0) {
+      return computation.get();
+    }
+    synchronized (this) {
+      removeClearedEntries();
+      Entry entry = entries.get(new Key(sources, operation, parameters, null));
+      List<Image> stored = entry == null ? null : entry.get();
+      if (stored != null) {
+        hits++;
+        return stored;
+      }
+      misses++;
+    }
+    List<Image> computed = List.copyOf(computation.get());
+    long entryWeight = getWeight(sources) + getWeight(computed);
+    if (entryWeight > byteBudget) {
+      return computed;
+    }
+    Key key = new Key(sources, operation, copyOf(parameters), clearedReferences);
+    synchronized (this) {
+      Entry stored = entries.get(key);
+      List<Image> storedResults = stored == null ? null : stored.get();
+      if (storedResults != null) {
+        return storedResults;
+      }
+      if (stored != null) {
+        removeEntry(stored.key, stored);
+      }
+      entries.put(key, new Entry(computed, key, entryWeight, clearedReferences));
+      weight += entryWeight;
+      Iterator<Entry> eldest = entries.values().iterator();
+      while (weight > byteBudget && eldest.hasNext()) {
+        weight -= eldest.next().weight;
+        eldest.remove();
+      }
+    }
+    return computed;
+  }
+
+  // Drops the entries whose sources or results have been collected since the last call.
+  private void removeClearedEntries() {
+    Reference<?> reference;
+    while ((reference = clearedReferences.poll()) != null) {
+      if (reference instanceof Entry) {
+        removeEntry(((Entry) reference).key, (Entry) reference);
+      } else {
+        removeEntry(((SourceReference) reference).key, null);
+      }
+    }
+  }
+
+  // Removes the entry stored under the given key, if it is the expected one or none is expected.
+  private void removeEntry(Key key, Entry expected) {
+    Entry entry = entries.get(key);
+    if (entry != null && (expected == null || entry == expected)) {
+      entries.remove(key);
+      weight -= entry.weight;
+    }
+  }
+
+  // Copies the parameters along with the arrays among them, at any depth, so that the key does not
+  // change when the caller reuses its arrays.
+  private static Object[] copyOf(Object[] parameters) {
+    Object[] copy = parameters.clone();
+    for (int i = 0; i < copy.length; i++) {
+      if (copy[i] instanceof Object[]) {
+        copy[i] = copyOf((Object[]) copy[i]);
+      } else if (copy[i] != null && copy[i].getClass().isArray()) {
+        int length = Array.getLength(copy[i]);
+        Object array = Array.newInstance(copy[i].getClass().getComponentType(), length);
+        System.arraycopy(copy[i], 0, array, 0, length);
+        copy[i] = array;
+      }
+    }
+    return copy;
+  }
+
+  private static long getWeight(List<Image> images) {
+    long weight = 0;
+    for (Image image : images) {
+      weight += image.getHeapBytes();
+    }
+    return weight;
+  }
+
+  /**
+   * Drops every entry of the cache.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    weight = 0;
+    while (clearedReferences.poll() != null) {
+      // the entries of the cleared references are gone already
+    }
+  }
+
+  /**
+   * Returns a snapshot of the counters of the cache.
+   *
+   * @return the current counters
+   */
+  public synchronized CacheStatistics getStatistics() {
+    removeClearedEntries();
+    return new CacheStatistics(hits, misses, weight, byteBudget);
+  }
+}
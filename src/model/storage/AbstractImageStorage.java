@@ -0,0 +1,103 @@
+package model.storage;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import model.exceptions.ImageNotFoundException;
+import model.image.Image;
+
+/**
+ * Contains the code common to all image storages, i.e. reporting missing images and computing
+ * images that are absent. Images being computed through
+ * {@link #computeImageIfAbsent(String, ImageSupplier)} are tracked by name, so that each is
+ * computed only once without holding any lock while it is computed.
+ */
+public abstract class AbstractImageStorage implements ImageStorage {
+
+  private final ConcurrentMap<String, FutureTask<Image>> pendingImages;
+
+  protected AbstractImageStorage() {
+    this.pendingImages = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns the image stored under the given name.
+   *
+   * @param imageName the name of the image
+   * @return the image, or null if there is no image under the given name
+   */
+  protected abstract Image findImage(String imageName);
+
+  /**
+   * Stores the given image under the given name unless an image is stored under that name already.
+   *
+   * @param imageName the name of the image
+   * @param image the image to be stored
+   * @return the image stored under the given name afterwards
+   */
+  protected abstract Image storeImageIfAbsent(String imageName, Image image);
+
+  @Override
+  public Image getImage(String imageName) throws ImageNotFoundException {
+    Image image = findImage(imageName);
+    if (image == null) {
+      throw new ImageNotFoundException(imageName);
+    }
+    return image;
+  }
+
+  @Override
+  public Image computeImageIfAbsent(String imageName, ImageSupplier supplier)
+          throws ImageNotFoundException {
+    Image image = findImage(imageName);
+    if (image != null) {
+      return image;
+    }
+    FutureTask<Image> task = new FutureTask<>(supplier::get);
+    FutureTask<Image> pending = pendingImages.putIfAbsent(imageName, task);
+    if (pending == null) {
+      // this thread computes the image, unless it was stored since the first check
+      try {
+        image = findImage(imageName);
+        if (image != null) {
+          return image;
+        }
+        task.run();
+        return storeImageIfAbsent(imageName, getResult(task));
+      } finally {
+        pendingImages.remove(imageName, task);
+      }
+    }
+    return getResult(pending);
+  }
+
+  // Waits for the given computation and rethrows whatever it threw.
+  private static Image getResult(FutureTask<Image> task) throws ImageNotFoundException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return task.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ImageNotFoundException) {
+        throw (ImageNotFoundException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
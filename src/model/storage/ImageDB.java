@@ -1,35 +1,55 @@
 package model.storage;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import model.exceptions.ImageNotFoundException;
 import model.image.Image;
 
 /**
- * Acts as an image storage, storing all the images loaded in the current session in a hashmap.
+ * Acts as an image storage, storing all the images loaded in the current session in a concurrent
+ * hashmap. Images may be read and stored by any number of threads at once, so a single storage can
+ * be shared by several sessions.
  */
-public class ImageDB implements ImageStorage {
+public class ImageDB extends AbstractImageStorage {
 
-  private final HashMap<String, Image> loadedImages;
+  private final ConcurrentMap<String, Image> loadedImages;
 
   /**
    * Initializes the hashmap to store images.
    */
   public ImageDB() {
-    this.loadedImages = new HashMap<>();
+    super();
+    this.loadedImages = new ConcurrentHashMap<>();
   }
 
   @Override
-  public Image getImage(String imageName) throws ImageNotFoundException {
-    Image image = loadedImages.get(imageName);
-    if (image == null) {
-      throw new ImageNotFoundException(imageName);
-    }
-    return image;
+  protected Image findImage(String imageName) {
+    return loadedImages.get(imageName);
   }
 
   @Override
   public void putImage(String imageName, Image image) {
     loadedImages.put(imageName, image);
   }
+
+  @Override
+  public void removeImage(String imageName) {
+    loadedImages.remove(imageName);
+  }
+
+  @Override
+  protected Image storeImageIfAbsent(String imageName, Image image) {
+    Image stored = loadedImages.putIfAbsent(imageName, image);
+    return stored == null ? image : stored;
+  }
+
+  @Override
+  public StorageStatistics getStatistics() {
+    return null;
+  }
+
+  @Override
+  public void close() {
+    loadedImages.clear();
+  }
 }
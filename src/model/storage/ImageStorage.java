@@ -4,9 +4,10 @@ import model.exceptions.ImageNotFoundException;
 import model.image.Image;
 
 /**
- * Represents a storage for images currently loaded and in use by the current session.
+ * Represents a storage for images currently loaded and in use by the current session. A storage
+ * is closed once the session ends, which releases whatever it holds outside the heap.
  */
-public interface ImageStorage {
+public interface ImageStorage extends AutoCloseable {
 
   /**
    * Searches the collection of loaded images and returns the requested image, if found.
@@ -24,4 +25,41 @@ public interface ImageStorage {
    * @param imageName name of the image
    */
   void putImage(String imageName, Image image);
+
+  /**
+   * Removes the image stored under the given name, if there is one.
+   *
+   * @param imageName name of the image
+   */
+  void removeImage(String imageName);
+
+  /**
+   * Returns the image stored under the given name, computing and storing it first if there is no
+   * such image. The image is computed at most once even if several threads ask for it at the same
+   * time; the other threads wait for the computation and get its result. Computations of images
+   * under different names do not block each other. The computation must not itself ask for the
+   * image under the same name.
+   *
+   * @param imageName the name of the image
+   * @param supplier the computation of the image, used only if it is not stored yet
+   * @return the stored or the computed image
+   * @throws ImageNotFoundException if the computation needs an image that is not found
+   */
+  Image computeImageIfAbsent(String imageName, ImageSupplier supplier)
+          throws ImageNotFoundException;
+
+  /**
+   * Returns a snapshot of the counters of this storage, if it keeps only part of its images in
+   * memory.
+   *
+   * @return the current counters, or null if all the images are kept in memory
+   */
+  StorageStatistics getStatistics();
+
+  /**
+   * Removes all the images of this storage and releases the resources they hold, such as files.
+   * The storage must not be used afterwards.
+   */
+  @Override
+  void close();
 }
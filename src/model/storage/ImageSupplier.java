@@ -0,0 +1,19 @@
+package model.storage;
+
+import model.exceptions.ImageNotFoundException;
+import model.image.Image;
+
+/**
+ * Represents the computation of an image that is derived from images held in an image storage.
+ */
+@FunctionalInterface
+public interface ImageSupplier {
+
+  /**
+   * Computes the image.
+   *
+   * @return the computed image
+   * @throws ImageNotFoundException if an image the computation depends on is not found
+   */
+  Image get() throws ImageNotFoundException;
+}
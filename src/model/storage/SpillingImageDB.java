@@ -0,0 +1,357 @@
+package model.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import model.image.Image;
+import model.image.ImageVersion3Impl;
+import model.image.PixelStorage;
+
+/**
+ * An image storage that keeps the images it holds in memory only up to a budget of bytes. When the
+ * images in memory grow beyond the budget, the least recently used ones are written to spill files
+ * and dropped from memory, and they are read back transparently the next time they are requested.
+ * The size of an image is the heap memory held by its pixel values, which includes the pixel values
+ * of the images it is a view of. An image whose pixel values are still read by a view is therefore
+ * counted through the view after it has been spilled, and images mapped from files, which take no
+ * heap memory, are never spilled.
+ *
+ * <p>A spill file holds the dimensions and the pixel value range of the image, followed by its
+ * samples channel by channel, one byte per sample up to a maximum value of 255 and two big-endian
+ * bytes per sample above it. As images never change, the spill file of an image is kept once
+ * written, so an image that is evicted again costs no further writing. Spill files are removed
+ * when the image is replaced or removed. They are kept in a directory of their own for each
+ * storage, created when the first image is spilled and deleted when the storage is closed.
+ *
+ * <p>Reading images does not take any global lock. Evictions are serialized, and each image is
+ * written or read back by one thread at a time.
+ */
+public class SpillingImageDB extends AbstractImageStorage {
+
+  // Samples are transferred in chunks of whole rows of about this many bytes.
+  private static final int CHUNK_SIZE = 1 << 20;
+
+  private static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+  private final long byteBudget;
+  private final Path parentDirectory;
+  private final ConcurrentMap<String, Entry> entries;
+  private final Object evictionLock;
+  private final AtomicLong clock;
+  private final AtomicLong residentBytes;
+  private final AtomicLong hits;
+  private final AtomicLong misses;
+  private final AtomicLong spills;
+
+  // Created by the first spill, guarded by the eviction lock.
+  private Path spillDirectory;
+
+  // The state of an image held by the storage. The image is null while it is spilled.
+  private static class Entry {
+    private final long bytes;
+    private volatile Image image;
+    private volatile long lastUsed;
+    private Path spillFile;
+    private boolean discarded;
+
+    private Entry(Image image, long bytes) {
+      this.image = image;
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * Creates a storage keeping at most about the given number of bytes of images in memory, and
+   * spilling the others to files in a directory it creates in the given directory.
+   *
+   * @param byteBudget the number of bytes the images in memory are kept within
+   * @param parentDirectory the directory in which the spill directory is created
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  public SpillingImageDB(long byteBudget, Path parentDirectory) throws IllegalArgumentException {
+    super();
+    if (byteBudget < 0) {
+      throw new IllegalArgumentException("The byte budget cannot be negative");
+    }
+    this.byteBudget = byteBudget;
+    this.parentDirectory = parentDirectory;
+    this.entries = new ConcurrentHashMap<>();
+    this.evictionLock = new Object();
+    this.clock = new AtomicLong();
+    this.residentBytes = new AtomicLong();
+    this.hits = new AtomicLong();
+    this.misses = new AtomicLong();
+    this.spills = new AtomicLong();
+  }
+
+  /**
+   * Creates a storage keeping at most about the given number of bytes of images in memory, and
+   * spilling the others to files in the temporary directory.
+   *
+   * @param byteBudget the number of bytes the images in memory are kept within
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  public SpillingImageDB(long byteBudget) throws IllegalArgumentException {
+    this(byteBudget, Paths.get(System.getProperty("java.io.tmpdir")));
+  }
+
+  @Override
+  public StorageStatistics getStatistics() {
+    return new StorageStatistics(hits.get(), misses.get(), spills.get(), residentBytes.get(),
+            byteBudget);
+  }
+
+  @Override
+  protected Image findImage(String imageName) {
+    Entry entry = entries.get(imageName);
+    if (entry == null) {
+      return null;
+    }
+    entry.lastUsed = clock.incrementAndGet();
+    Image image = entry.image;
+    if (image != null) {
+      hits.incrementAndGet();
+      return image;
+    }
+    synchronized (entry) {
+      if (entry.discarded) {
+        // the image has been replaced meanwhile
+        return findImage(imageName);
+      }
+      image = entry.image;
+      if (image == null) {
+        misses.incrementAndGet();
+        image = readSpillFile(entry.spillFile);
+        entry.image = image;
+        residentBytes.addAndGet(entry.bytes);
+      } else {
+        hits.incrementAndGet();
+      }
+    }
+    evictIfNeeded(entry);
+    return image;
+  }
+
+  @Override
+  public void putImage(String imageName, Image image) {
+    Entry entry = createEntry(image);
+    Entry replaced = entries.put(imageName, entry);
+    if (replaced != null) {
+      discard(replaced);
+    }
+    evictIfNeeded(entry);
+  }
+
+  @Override
+  public void removeImage(String imageName) {
+    Entry removed = entries.remove(imageName);
+    if (removed != null) {
+      discard(removed);
+    }
+  }
+
+  @Override
+  protected Image storeImageIfAbsent(String imageName, Image image) {
+    Entry entry = createEntry(image);
+    Entry stored = entries.putIfAbsent(imageName, entry);
+    if (stored != null) {
+      residentBytes.addAndGet(-entry.bytes);
+      Image storedImage = findImage(imageName);
+      return storedImage == null ? image : storedImage;
+    }
+    evictIfNeeded(entry);
+    return image;
+  }
+
+  private Entry createEntry(Image image) {
+    long bytes = image.getHeapBytes();
+    Entry entry = new Entry(image, bytes);
+    entry.lastUsed = clock.incrementAndGet();
+    residentBytes.addAndGet(bytes);
+    return entry;
+  }
+
+  private void discard(Entry entry) {
+    synchronized (entry) {
+      entry.discarded = true;
+      if (entry.image != null) {
+        residentBytes.addAndGet(-entry.bytes);
+      }
+      if (entry.spillFile != null) {
+        deleteSpillFile(entry.spillFile);
+      }
+    }
+  }
+
+  /**
+   * Removes all the images of this storage, deleting their spill files and the spill directory.
+   */
+  @Override
+  public void close() {
+    synchronized (evictionLock) {
+      for (String imageName : entries.keySet()) {
+        removeImage(imageName);
+      }
+      if (spillDirectory != null) {
+        // files whose deletion failed earlier would keep the directory from being deleted
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+          files.forEach(SpillingImageDB::deleteSpillFile);
+        } catch (IOException e) {
+          // the directory is gone already
+        }
+        deleteSpillFile(spillDirectory);
+        spillDirectory = null;
+      }
+    }
+  }
+
+  // Spills the least recently used images other than the given one until the images in memory
+  // fit in the budget.
+  private void evictIfNeeded(Entry keep) {
+    if (residentBytes.get() <= byteBudget) {
+      return;
+    }
+    synchronized (evictionLock) {
+      while (residentBytes.get() > byteBudget) {
+        Entry victim = null;
+        for (Entry entry : entries.values()) {
+          if (entry != keep && entry.image != null && entry.bytes > 0
+                  && (victim == null || entry.lastUsed < victim.lastUsed)) {
+            victim = entry;
+          }
+        }
+        if (victim == null) {
+          return;
+        }
+        spill(victim);
+      }
+    }
+  }
+
+  private void spill(Entry entry) {
+    synchronized (entry) {
+      Image image = entry.image;
+      if (image == null || entry.discarded) {
+        return;
+      }
+      if (entry.spillFile == null) {
+        entry.spillFile = writeSpillFile(image);
+      }
+      entry.image = null;
+      residentBytes.addAndGet(-entry.bytes);
+      spills.incrementAndGet();
+    }
+  }
+
+  private Path writeSpillFile(Image image) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int channels = image.getNumberOfChannels();
+    int bytesPerSample = image.getMaximumPixelValue() > 255 ? 2 : 1;
+    int rowsPerChunk = Math.max(1, CHUNK_SIZE / (width * bytesPerSample));
+    try {
+      if (spillDirectory == null) {
+        Files.createDirectories(parentDirectory);
+        spillDirectory = Files.createTempDirectory(parentDirectory, "images");
+      }
+      Path file = Files.createTempFile(spillDirectory, "image", ".spill");
+      try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(height).putInt(width).putInt(channels)
+                .putInt(image.getMinimumPixelValue()).putInt(image.getMaximumPixelValue()).flip();
+        writeFully(fileChannel, header);
+        ByteBuffer chunk = ByteBuffer.allocateDirect(rowsPerChunk * width * bytesPerSample);
+        int[] samples = new int[width];
+        for (int channel = 0; channel < channels; channel++) {
+          for (int row = 0; row < height; row++) {
+            image.getRowValues(row, channel, samples, 0);
+            for (int col = 0; col < width; col++) {
+              if (bytesPerSample == 1) {
+                chunk.put((byte) samples[col]);
+              } else {
+                chunk.putShort((short) samples[col]);
+              }
+            }
+            if (!chunk.hasRemaining() || row == height - 1) {
+              chunk.flip();
+              writeFully(fileChannel, chunk);
+              chunk.clear();
+            }
+          }
+        }
+      }
+      return file;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not spill image to " + parentDirectory, e);
+    }
+  }
+
+  private static Image readSpillFile(Path file) {
+    try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      readFully(fileChannel, header);
+      header.flip();
+      int height = header.getInt();
+      int width = header.getInt();
+      int channels = header.getInt();
+      int minimumPixelValue = header.getInt();
+      int maximumPixelValue = header.getInt();
+      int bytesPerSample = maximumPixelValue > 255 ? 2 : 1;
+      int rowsPerChunk = Math.max(1, CHUNK_SIZE / (width * bytesPerSample));
+      PixelStorage storage = PixelStorage.allocate(height, width, channels, maximumPixelValue);
+      ByteBuffer chunk = ByteBuffer.allocateDirect(rowsPerChunk * width * bytesPerSample);
+      int[] samples = new int[width];
+      for (int channel = 0; channel < channels; channel++) {
+        for (int startRow = 0; startRow < height; startRow += rowsPerChunk) {
+          int rows = Math.min(rowsPerChunk, height - startRow);
+          chunk.clear().limit(rows * width * bytesPerSample);
+          readFully(fileChannel, chunk);
+          chunk.flip();
+          for (int row = startRow; row < startRow + rows; row++) {
+            for (int col = 0; col < width; col++) {
+              samples[col] = bytesPerSample == 1 ? chunk.get() & 0xff : chunk.getShort() & 0xffff;
+            }
+            storage.setSamples(channel, (long) row * width, samples, 0, width);
+          }
+        }
+      }
+      return new ImageVersion3Impl.ImageVersion3ImplBuilder().setHeight(height).setWidth(width)
+              .setNumberOfChannels(channels).setMinimumPixelValue(minimumPixelValue)
+              .setMaximumPixelValue(maximumPixelValue).setPixelStorage(storage).build();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read spilled image from " + file, e);
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Spill file is truncated");
+      }
+    }
+  }
+
+  private static void deleteSpillFile(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // the file is removed with the spill directory when the storage is closed
+    }
+  }
+}
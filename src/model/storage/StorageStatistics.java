@@ -0,0 +1,82 @@
+package model.storage;
+
+/**
+ * A snapshot of the counters of an image storage that keeps only part of its images in memory.
+ */
+public class StorageStatistics {
+
+  private final long hits;
+  private final long misses;
+  private final long spills;
+  private final long residentBytes;
+  private final long byteBudget;
+
+  /**
+   * Creates a snapshot of the given counters.
+   *
+   * @param hits the number of requests for images that were in memory
+   * @param misses the number of requests for images that had to be read back from disk
+   * @param spills the number of times an image was evicted from memory
+   * @param residentBytes the estimated size of the images in memory
+   * @param byteBudget the size the images in memory are kept within
+   */
+  public StorageStatistics(long hits, long misses, long spills, long residentBytes,
+                           long byteBudget) {
+    this.hits = hits;
+    this.misses = misses;
+    this.spills = spills;
+    this.residentBytes = residentBytes;
+    this.byteBudget = byteBudget;
+  }
+
+  /**
+   * Returns the number of requests for images that were in memory.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of requests for images that had to be read back from disk.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of times an image was evicted from memory.
+   *
+   * @return the number of spills
+   */
+  public long getSpills() {
+    return spills;
+  }
+
+  /**
+   * Returns the estimated size in bytes of the samples of the images in memory.
+   *
+   * @return the number of bytes in memory
+   */
+  public long getResidentBytes() {
+    return residentBytes;
+  }
+
+  /**
+   * Returns the size in bytes the images in memory are kept within.
+   *
+   * @return the byte budget
+   */
+  public long getByteBudget() {
+    return byteBudget;
+  }
+
+  @Override
+  public String toString() {
+    return "hits=" + hits + " misses=" + misses + " spills=" + spills + " resident="
+            + residentBytes + "/" + byteBudget + " bytes";
+  }
+}
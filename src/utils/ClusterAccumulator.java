@@ -0,0 +1,97 @@
+package utils;
+
+/**
+ * This class keeps the running sums of the red, green and blue values of the pixels in each of a
+ * fixed number of clusters, together with the number of pixels in each cluster. The sums are held
+ * in one primitive array per channel, so adding a pixel allocates nothing. Accumulators filled in
+ * separately, for example by different threads, can be merged into one.
+ */
+public class ClusterAccumulator {
+  private final long[] redSums;
+  private final long[] greenSums;
+  private final long[] blueSums;
+  private final int[] counts;
+
+  /**
+   * Constructs an empty accumulator for the given number of clusters.
+   *
+   * @param numberOfClusters The number of clusters.
+   */
+  public ClusterAccumulator(int numberOfClusters) {
+    this.redSums = new long[numberOfClusters];
+    this.greenSums = new long[numberOfClusters];
+    this.blueSums = new long[numberOfClusters];
+    this.counts = new int[numberOfClusters];
+  }
+
+  /**
+   * Returns the number of clusters of this accumulator.
+   *
+   * @return The number of clusters.
+   */
+  public int getNumberOfClusters() {
+    return counts.length;
+  }
+
+  /**
+   * Adds the color channel values of a pixel to the given cluster.
+   *
+   * @param cluster The cluster the pixel belongs to.
+   * @param red     The red color channel value of the pixel.
+   * @param green   The green color channel value of the pixel.
+   * @param blue    The blue color channel value of the pixel.
+   */
+  public void add(int cluster, int red, int green, int blue) {
+    redSums[cluster] += red;
+    greenSums[cluster] += green;
+    blueSums[cluster] += blue;
+    counts[cluster]++;
+  }
+
+  /**
+   * Adds the sums and counts of all clusters of another accumulator to this one.
+   *
+   * @param other The accumulator to be merged into this one.
+   * @throws IllegalArgumentException if the accumulators have different numbers of clusters
+   */
+  public void merge(ClusterAccumulator other) throws IllegalArgumentException {
+    if (other.counts.length != counts.length) {
+      throw new IllegalArgumentException("Accumulators have different numbers of clusters");
+    }
+    for (int cluster = 0; cluster < counts.length; cluster++) {
+      redSums[cluster] += other.redSums[cluster];
+      greenSums[cluster] += other.greenSums[cluster];
+      blueSums[cluster] += other.blueSums[cluster];
+      counts[cluster] += other.counts[cluster];
+    }
+  }
+
+  /**
+   * Returns the number of pixels added to the given cluster.
+   *
+   * @param cluster The cluster.
+   * @return The number of pixels in the cluster.
+   */
+  public int getCount(int cluster) {
+    return counts[cluster];
+  }
+
+  /**
+   * Calculates the average of the red, green and blue values of every cluster, rounded down.
+   * Clusters without pixels have an average of 0.
+   *
+   * @return The averages indexed by channel (red, green, blue) and then by cluster.
+   */
+  public int[][] calculateAverages() {
+    int[][] averages = new int[3][counts.length];
+    for (int cluster = 0; cluster < counts.length; cluster++) {
+      int count = counts[cluster];
+      if (count > 0) {
+        averages[0][cluster] = (int) (redSums[cluster] / count);
+        averages[1][cluster] = (int) (greenSums[cluster] / count);
+        averages[2][cluster] = (int) (blueSums[cluster] / count);
+      }
+    }
+    return averages;
+  }
+}
@@ -0,0 +1,148 @@
+package controller.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import controller.utils.Messages;
+import controller.utils.PPMImageUtil;
+import model.image.Image;
+import model.image.ImageImpl;
+import model.image.PixelStorage;
+import model.manipulator.ImageManipulatorVersion4Impl;
+
+/**
+ * Checks that running a script lazily or in parallel saves the same files as running it line by
+ * line, including scripts that overwrite images, nest other scripts and contain invalid lines.
+ */
+public class ScriptModesTest {
+
+  private static final List<String> SAVED_FILES = List.of("bright.ppm", "blur.ppm",
+          "sepia.ppm", "combined.ppm", "luma.ppm", "dither.ppm", "sharp.ppm", "nested.ppm",
+          "overwritten.ppm");
+
+  private static final String SCRIPT = String.join("\n",
+          "load source.ppm a",
+          "brighten 30 a bright",
+          "blur a blurred",
+          "sepia blurred sepia",
+          "horizontal-flip sepia sepia",
+          "rgb-split a r g b",
+          "rgb-combine combined b r g",
+          "greyscale luma-component a luma",
+          "dither red a dither",
+          "sharpen bright sharp",
+          "save bright.ppm bright",
+          "save blur.ppm blurred",
+          "save sepia.ppm sepia",
+          "save combined.ppm combined",
+          "save luma.ppm luma",
+          "save dither.ppm dither",
+          "vertical-flip a unused",
+          "save sharp.ppm sharp",
+          "run nested.txt",
+          "save nested.ppm nested",
+          "brighten -50 a a",
+          "save overwritten.ppm a",
+          "");
+
+  private static final String NESTED_SCRIPT = "vertical-flip sharp nested\n";
+
+  private static final String ABORTED_SCRIPT = String.join("\n",
+          "load source.ppm a",
+          "brighten 30 a bright",
+          "save bright.ppm bright",
+          "not-a-command a b",
+          "save sepia.ppm a",
+          "");
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testLazyAndParallelRunsSaveSameFiles() throws IOException {
+    Files.writeString(directory.resolve("script.txt"), SCRIPT);
+    Files.writeString(directory.resolve("nested.txt"), NESTED_SCRIPT);
+    new PPMImageUtil().saveImageToFile(randomImage(37, 53),
+            directory.resolve("source.ppm").toString());
+
+    String sequential = runScript("run");
+    byte[][] expected = readSavedFiles();
+    String lazy = runScript("run-lazy");
+    assertSavedFilesEqual(expected, "run-lazy");
+    String parallel = runScript("run-parallel");
+    assertSavedFilesEqual(expected, "run-parallel");
+
+    for (String output : new String[]{sequential, lazy, parallel}) {
+      assertTrue(output.contains(Messages.FINISHED_RUNNING_SCRIPT + "script.txt"), output);
+    }
+    assertEquals(sequential, parallel);
+  }
+
+  @Test
+  public void testEveryModeAbortsAtInvalidLine() throws IOException {
+    Files.writeString(directory.resolve("script.txt"), ABORTED_SCRIPT);
+    new PPMImageUtil().saveImageToFile(randomImage(7, 9),
+            directory.resolve("source.ppm").toString());
+
+    for (String command : new String[]{"run", "run-lazy", "run-parallel"}) {
+      String output = runScript(command);
+      assertTrue(output.contains(Messages.INVALID_COMMAND + Messages.ABORTING_SCRIPT), output);
+      assertFalse(output.contains(Messages.FINISHED_RUNNING_SCRIPT), output);
+      assertTrue(Files.exists(directory.resolve("bright.ppm")), command);
+      assertFalse(Files.exists(directory.resolve("sepia.ppm")), command);
+    }
+  }
+
+  private String runScript(String command) throws IOException {
+    for (String file : SAVED_FILES) {
+      Files.deleteIfExists(directory.resolve(file));
+    }
+    StringBuilder out = new StringBuilder();
+    new ControllerImplVersion2(new ImageManipulatorVersion4Impl(),
+            new StringReader(command + " script.txt\nq\n"), out, directory.toFile()).run();
+    return out.toString();
+  }
+
+  private byte[][] readSavedFiles() throws IOException {
+    byte[][] contents = new byte[SAVED_FILES.size()][];
+    for (int i = 0; i < contents.length; i++) {
+      contents[i] = Files.readAllBytes(directory.resolve(SAVED_FILES.get(i)));
+    }
+    return contents;
+  }
+
+  private void assertSavedFilesEqual(byte[][] expected, String command) throws IOException {
+    byte[][] actual = readSavedFiles();
+    for (int i = 0; i < expected.length; i++) {
+      assertArrayEquals(expected[i], actual[i], command + " saved " + SAVED_FILES.get(i));
+    }
+  }
+
+  private static Image randomImage(int height, int width) {
+    Random random = new Random(29);
+    PixelStorage storage = PixelStorage.allocate(height, width, 3, 255);
+    int[] samples = new int[width];
+    for (int channel = 0; channel < 3; channel++) {
+      for (int row = 0; row < height; row++) {
+        for (int col = 0; col < width; col++) {
+          samples[col] = random.nextInt(256);
+        }
+        storage.setSamples(channel, (long) row * width, samples, 0, width);
+      }
+    }
+    return new ImageImpl.ImageImplBuilder().setHeight(height).setWidth(width)
+            .setMaximumPixelValue(255).setPixelStorage(storage).build();
+  }
+}
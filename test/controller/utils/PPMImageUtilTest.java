@@ -0,0 +1,106 @@
+package controller.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import controller.enums.PPMFormat;
+import model.image.Image;
+import model.image.ImageImpl;
+import model.image.PixelStorage;
+
+/**
+ * Checks that images saved in each of the PPM formats load back with the same samples, for 8 bit
+ * and deeper maximum values.
+ */
+public class PPMImageUtilTest {
+
+  private static final int[][] SIZES = {{1, 1}, {3, 5}, {40, 29}};
+  private static final int[] MAXIMUM_VALUES = {1, 255, 256, 1000, 65535};
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testPlainRoundTrip() throws IOException {
+    checkRoundTrip(PPMFormat.PLAIN_RGB);
+  }
+
+  @Test
+  public void testRawRgbRoundTrip() throws IOException {
+    checkRoundTrip(PPMFormat.RAW_RGB);
+  }
+
+  @Test
+  public void testRawGreyRoundTrip() throws IOException {
+    checkRoundTrip(PPMFormat.RAW_GREY);
+  }
+
+  @Test
+  public void testSamplesAboveMaximumAreRejected() throws IOException {
+    Path plain = directory.resolve("plain.ppm");
+    Files.write(plain, "P3\n1 1\n255\n0 256 0\n".getBytes(StandardCharsets.US_ASCII));
+    assertThrows(IOException.class, () -> new PPMImageUtil().getImageFromFile(plain.toString()));
+
+    Path raw = directory.resolve("raw.pgm");
+    byte[] header = "P5\n1 1\n100\n".getBytes(StandardCharsets.US_ASCII);
+    byte[] file = new byte[header.length + 1];
+    System.arraycopy(header, 0, file, 0, header.length);
+    file[header.length] = (byte) 101;
+    Files.write(raw, file);
+    assertThrows(IOException.class, () -> new PPMImageUtil().getImageFromFile(raw.toString()));
+  }
+
+  private void checkRoundTrip(PPMFormat format) throws IOException {
+    Random random = new Random(23);
+    PPMImageUtil util = new PPMImageUtil(format);
+    for (int[] size : SIZES) {
+      for (int maximum : MAXIMUM_VALUES) {
+        Image image = randomImage(random, size[0], size[1], maximum);
+        String path = directory.resolve(format + "-" + maximum + ".ppm").toString();
+        util.saveImageToFile(image, path);
+        Image loaded = util.getImageFromFile(path);
+
+        String description = format + ", " + size[0] + "x" + size[1] + ", maximum " + maximum;
+        assertEquals(image.getHeight(), loaded.getHeight(), description);
+        assertEquals(image.getWidth(), loaded.getWidth(), description);
+        assertEquals(maximum, loaded.getMaximumPixelValue(), description);
+        assertEquals(3, loaded.getNumberOfChannels(), description);
+        int[] expected = new int[size[1]];
+        int[] actual = new int[size[1]];
+        for (int row = 0; row < size[0]; row++) {
+          for (int channel = 0; channel < 3; channel++) {
+            // a grey file holds the first channel, which every channel is loaded with
+            image.getRowValues(row, format.getNumberOfChannels() == 1 ? 0 : channel, expected, 0);
+            loaded.getRowValues(row, channel, actual, 0);
+            assertArrayEquals(expected, actual, description + ", row " + row);
+          }
+        }
+      }
+    }
+  }
+
+  private static Image randomImage(Random random, int height, int width, int maximum) {
+    PixelStorage storage = PixelStorage.allocate(height, width, 3, maximum);
+    int[] samples = new int[width];
+    for (int channel = 0; channel < 3; channel++) {
+      for (int row = 0; row < height; row++) {
+        for (int col = 0; col < width; col++) {
+          samples[col] = random.nextInt(maximum + 1);
+        }
+        storage.setSamples(channel, (long) row * width, samples, 0, width);
+      }
+    }
+    return new ImageImpl.ImageImplBuilder().setHeight(height).setWidth(width)
+            .setMaximumPixelValue(maximum).setPixelStorage(storage).build();
+  }
+}
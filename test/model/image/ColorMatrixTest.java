@@ -0,0 +1,87 @@
+package model.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import controller.enums.ColorTransform;
+
+/**
+ * Checks that the fixed-point weighted sums of a color matrix agree with the double arithmetic of
+ * the scalar kernels, within the bound stated by {@link ColorMatrix}.
+ */
+public class ColorMatrixTest {
+
+  // the largest difference between the fixed-point and the exact sum of 8 bit samples
+  private static final double BOUND = 3 * 255 / (double) (1 << (ColorMatrix.FRACTION_BITS + 1));
+  private static final int PIXELS = 100_000;
+
+  @Test
+  public void testSepiaMatchesDoubleArithmetic() {
+    checkMatchesDoubleArithmetic(ColorTransform.SEPIA.getTransform());
+  }
+
+  @Test
+  public void testGreyscaleMatchesDoubleArithmetic() {
+    checkMatchesDoubleArithmetic(ColorTransform.GREYSCALE.getTransform());
+  }
+
+  @Test
+  public void testRandomMatricesMatchDoubleArithmetic() {
+    Random random = new Random(3);
+    for (int i = 0; i < 20; i++) {
+      double[][] transform = new double[3][3];
+      for (double[] row : transform) {
+        for (int col = 0; col < 3; col++) {
+          row[col] = random.nextDouble() * 3 - 1;
+        }
+      }
+      checkMatchesDoubleArithmetic(transform);
+    }
+  }
+
+  @Test
+  public void testOversizedWeightsAreNotSupported() {
+    assertTrue(!new ColorMatrix(new double[][]{{1e6, 0, 0}}).supports(255));
+    assertTrue(!new ColorMatrix(new double[][]{{Double.NaN, 0, 0}}).supports(255));
+    assertTrue(!new ColorMatrix(ColorTransform.SEPIA.getTransform()).supports(256));
+  }
+
+  private static void checkMatchesDoubleArithmetic(double[][] transform) {
+    ColorMatrix matrix = new ColorMatrix(transform);
+    assertTrue(matrix.supports(255));
+    int[] red = new int[PIXELS];
+    int[] green = new int[PIXELS];
+    int[] blue = new int[PIXELS];
+    Random random = new Random(7);
+    for (int i = 0; i < PIXELS; i++) {
+      red[i] = random.nextInt(256);
+      green[i] = random.nextInt(256);
+      blue[i] = random.nextInt(256);
+    }
+    // the extremes of the range
+    red[0] = green[0] = blue[0] = 0;
+    red[1] = green[1] = blue[1] = 255;
+
+    int[][] expected = {red.clone(), green.clone(), blue.clone()};
+    new ScalarPointKernels().colorTransform(expected[0], expected[1], expected[2], PIXELS,
+            transform, 0, 255);
+    int[] result = new int[PIXELS];
+    for (int row = 0; row < 3; row++) {
+      matrix.applyRow(red, green, blue, row, result, PIXELS, 0, 255);
+      for (int i = 0; i < PIXELS; i++) {
+        double exact = transform[row][0] * red[i] + transform[row][1] * green[i]
+                + transform[row][2] * blue[i];
+        double distanceFromHalf = Math.abs(exact - Math.floor(exact) - 0.5);
+        if (distanceFromHalf > BOUND) {
+          assertEquals(expected[row][i], result[i], "pixel " + i + " of row " + row);
+        } else {
+          assertTrue(Math.abs(expected[row][i] - result[i]) <= 1, "pixel " + i + " of row " + row);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package model.image;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import controller.enums.Filter;
+
+/**
+ * Checks that a convolution computes the same samples as the straightforward loop that filter used
+ * to run over every pixel and every weight, and that convolving an image band by band gives the
+ * same result as convolving it whole.
+ */
+public class ConvolutionTest {
+
+  private static final int[][] SIZES = {{1, 1}, {1, 7}, {7, 1}, {2, 3}, {5, 5}, {17, 23}, {64, 9}};
+
+  @Test
+  public void testFiltersMatchReferenceLoop() {
+    for (Filter filter : Filter.values()) {
+      checkMatchesReferenceLoop(filter.getKernel());
+    }
+  }
+
+  @Test
+  public void testRandomKernelsMatchReferenceLoop() {
+    Random random = new Random(5);
+    for (int size : new int[]{1, 3, 5, 7}) {
+      double[][] kernel = new double[size][size];
+      for (double[] row : kernel) {
+        for (int col = 0; col < size; col++) {
+          row[col] = random.nextDouble() * 2 - 0.8;
+        }
+      }
+      checkMatchesReferenceLoop(kernel);
+    }
+  }
+
+  @Test
+  public void testBandsMatchWholeImage() {
+    Random random = new Random(13);
+    for (Filter filter : Filter.values()) {
+      Convolution convolution = new Convolution(filter.getKernel());
+      int radius = convolution.getRadius();
+      for (int[] size : SIZES) {
+        int height = size[0];
+        int width = size[1];
+        int[] source = randomSamples(random, height * width, 255);
+        int[] whole = new int[height * width];
+        convolution.apply(source, 0, height, width, 0, height, whole, 0, 255);
+
+        for (int bandHeight = 1; bandHeight <= height; bandHeight++) {
+          int[] banded = new int[height * width];
+          for (int startRow = 0; startRow < height; startRow += bandHeight) {
+            int endRow = Math.min(startRow + bandHeight, height);
+            // hand each band only the rows within the radius of the kernel, as filter does
+            int firstSourceRow = Math.max(0, startRow - radius);
+            int lastSourceRow = Math.min(height, endRow + radius);
+            int[] band = Arrays.copyOfRange(source, firstSourceRow * width,
+                    lastSourceRow * width);
+            int[] destination = new int[(endRow - startRow) * width];
+            convolution.apply(band, firstSourceRow, height, width, startRow, endRow, destination,
+                    0, 255);
+            System.arraycopy(destination, 0, banded, startRow * width, destination.length);
+          }
+          assertArrayEquals(whole, banded, filter + ", " + height + "x" + width + " in bands of "
+                  + bandHeight);
+        }
+      }
+    }
+  }
+
+  private static void checkMatchesReferenceLoop(double[][] kernel) {
+    Random random = new Random(17);
+    Convolution convolution = new Convolution(kernel);
+    for (int[] size : SIZES) {
+      for (int maximum : new int[]{255, 65535}) {
+        int height = size[0];
+        int width = size[1];
+        int[] source = randomSamples(random, height * width, maximum);
+        int[] actual = new int[height * width];
+        convolution.apply(source, 0, height, width, 0, height, actual, 0, maximum);
+        assertArrayEquals(referenceFilter(kernel, source, height, width, maximum), actual,
+                kernel.length + "x" + kernel.length + " kernel on " + height + "x" + width);
+      }
+    }
+  }
+
+  // The loop filter ran before convolutions were introduced, truncating the sum after every weight.
+  private static int[] referenceFilter(double[][] kernel, int[] source, int height, int width,
+                                       int maximum) {
+    int kernelSize = kernel.length;
+    int[] result = new int[height * width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        int sum = 0;
+        for (int ki = 0; ki < kernelSize; ki++) {
+          int ii = i + ki - (kernelSize / 2);
+          for (int kj = 0; kj < kernelSize; kj++) {
+            int jj = j + kj - (kernelSize / 2);
+            if (ii >= 0 && ii < height && jj >= 0 && jj < width) {
+              sum += kernel[ki][kj] * source[ii * width + jj];
+            }
+          }
+        }
+        result[i * width + j] = Math.max(0, Math.min(sum, maximum));
+      }
+    }
+    return result;
+  }
+
+  private static int[] randomSamples(Random random, int length, int maximum) {
+    int[] samples = new int[length];
+    for (int i = 0; i < length; i++) {
+      samples[i] = random.nextInt(maximum + 1);
+    }
+    return samples;
+  }
+}
@@ -0,0 +1,126 @@
+package model.image;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import controller.enums.ColorTransform;
+
+/**
+ * Checks that the fastest available kernels, which are the vectorized ones when the Vector API is
+ * present, compute exactly what the scalar kernels compute. The lengths cover runs shorter than a
+ * vector, whole vectors and the tails that follow them.
+ */
+public class PointKernelsTest {
+
+  private static final int MAXIMUM_LENGTH = 300;
+
+  private final PointKernels scalar = new ScalarPointKernels();
+  private PointKernels fastest;
+  private Random random;
+
+  @BeforeEach
+  public void setUp() {
+    fastest = PointKernels.getFastestAvailable();
+    assumeFalse(fastest instanceof ScalarPointKernels, "the Vector API is not available");
+    random = new Random(11);
+  }
+
+  @Test
+  public void testBrighten() {
+    for (int maximum : new int[]{255, 65535}) {
+      for (int amount : new int[]{-maximum - 1, -40, 0, 25, maximum + 1}) {
+        for (int length = 0; length <= MAXIMUM_LENGTH; length++) {
+          int offset = random.nextInt(8);
+          int[] expected = randomSamples(offset + length + 8, maximum);
+          int[] actual = expected.clone();
+          scalar.brighten(expected, offset, length, amount, 0, maximum);
+          fastest.brighten(actual, offset, length, amount, 0, maximum);
+          assertArrayEquals(expected, actual, "length " + length + ", amount " + amount);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testColorTransform() {
+    for (ColorTransform transform : ColorTransform.values()) {
+      for (int maximum : new int[]{255, 65535}) {
+        for (int length = 0; length <= MAXIMUM_LENGTH; length++) {
+          int[][] expected = {randomSamples(length, maximum), randomSamples(length, maximum),
+                  randomSamples(length, maximum)};
+          int[][] actual = {expected[0].clone(), expected[1].clone(), expected[2].clone()};
+          scalar.colorTransform(expected[0], expected[1], expected[2], length,
+                  transform.getTransform(), 0, maximum);
+          fastest.colorTransform(actual[0], actual[1], actual[2], length,
+                  transform.getTransform(), 0, maximum);
+          assertArrayEquals(expected, actual, transform + ", length " + length);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testWeightedSum() {
+    for (ColorTransform transform : ColorTransform.values()) {
+      ColorMatrix matrix = new ColorMatrix(transform.getTransform());
+      for (int length = 0; length <= MAXIMUM_LENGTH; length++) {
+        int[] red = randomSamples(length, 255);
+        int[] green = randomSamples(length, 255);
+        int[] blue = randomSamples(length, 255);
+        for (int row = 0; row < matrix.getRows(); row++) {
+          int[] expected = new int[length];
+          int[] actual = new int[length];
+          scalar.weightedSum(red, green, blue, matrix, row, expected, length, 0, 255);
+          fastest.weightedSum(red, green, blue, matrix, row, actual, length, 0, 255);
+          assertArrayEquals(expected, actual, transform + ", length " + length);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testLuma() {
+    for (int maximum : new int[]{255, 65535}) {
+      for (int length = 0; length <= MAXIMUM_LENGTH; length++) {
+        int[] red = randomSamples(length, maximum);
+        int[] green = randomSamples(length, maximum);
+        int[] blue = randomSamples(length, maximum);
+        int[] expected = new int[length];
+        int[] actual = new int[length];
+        scalar.luma(red, green, blue, expected, length);
+        fastest.luma(red, green, blue, actual, length);
+        assertArrayEquals(expected, actual, "length " + length);
+      }
+    }
+  }
+
+  @Test
+  public void testIntensity() {
+    for (int channels = 1; channels <= 4; channels++) {
+      for (int length = 0; length <= MAXIMUM_LENGTH; length++) {
+        int[][] samples = new int[channels][];
+        for (int channel = 0; channel < channels; channel++) {
+          samples[channel] = randomSamples(length, 65535);
+        }
+        int[] expected = new int[length];
+        int[] actual = new int[length];
+        scalar.intensity(samples, expected, length);
+        fastest.intensity(samples, actual, length);
+        assertArrayEquals(expected, actual, channels + " channels, length " + length);
+      }
+    }
+  }
+
+  private int[] randomSamples(int length, int maximum) {
+    int[] samples = new int[length];
+    for (int i = 0; i < length; i++) {
+      samples[i] = random.nextInt(maximum + 1);
+    }
+    return samples;
+  }
+}
@@ -0,0 +1,73 @@
+package model.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a seed grid finds the same seed as a linear scan over all the seeds, including the
+ * choice among seeds at the same distance.
+ */
+public class SeedGridTest {
+
+  @Test
+  public void testMatchesLinearScan() {
+    Random random = new Random(19);
+    int[][] sizes = {{1, 1}, {1, 50}, {50, 1}, {31, 47}, {120, 80}};
+    for (int[] size : sizes) {
+      int height = size[0];
+      int width = size[1];
+      for (int seeds : new int[]{1, 2, 7, 100, height * width}) {
+        int[] seedRows = new int[seeds];
+        int[] seedCols = new int[seeds];
+        for (int i = 0; i < seeds; i++) {
+          seedRows[i] = random.nextInt(height);
+          seedCols[i] = random.nextInt(width);
+        }
+        checkMatchesLinearScan(seedRows, seedCols, height, width);
+      }
+    }
+  }
+
+  @Test
+  public void testTiesGoToSmallerIndex() {
+    // every pixel is at the same distance from pairs of seeds, and some seeds are duplicates
+    int[] seedRows = {10, 10, 0, 20, 20, 0, 10};
+    int[] seedCols = {0, 20, 10, 10, 20, 0, 0};
+    checkMatchesLinearScan(seedRows, seedCols, 21, 21);
+  }
+
+  @Test
+  public void testRejectsInvalidSeeds() {
+    assertThrows(IllegalArgumentException.class,
+            () -> new SeedGrid(new int[0], new int[0], 5, 5));
+    assertThrows(IllegalArgumentException.class,
+            () -> new SeedGrid(new int[]{5}, new int[]{0}, 5, 5));
+    assertThrows(IllegalArgumentException.class,
+            () -> new SeedGrid(new int[]{0, 1}, new int[]{0}, 5, 5));
+  }
+
+  private static void checkMatchesLinearScan(int[] seedRows, int[] seedCols, int height,
+                                             int width) {
+    SeedGrid grid = new SeedGrid(seedRows, seedCols, height, width);
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        int nearest = 0;
+        long nearestDistance = Long.MAX_VALUE;
+        for (int i = 0; i < seedRows.length; i++) {
+          long rowDistance = row - seedRows[i];
+          long colDistance = col - seedCols[i];
+          long distance = rowDistance * rowDistance + colDistance * colDistance;
+          if (distance < nearestDistance) {
+            nearest = i;
+            nearestDistance = distance;
+          }
+        }
+        assertEquals(nearest, grid.findNearest(row, col), "pixel " + row + "," + col);
+      }
+    }
+  }
+}